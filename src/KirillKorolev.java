@@ -1,15 +1,33 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ToIntFunction;
 
 
 /**
  * <h1>Main class</h1>
  * The main class that contains driver code for algorithms. It contains three main methods:
  * <br/>
- * 1) <strong>Main</strong>({@code main}), which simply calls dialog method with all user interactive functions.
+ * 1) <strong>Main</strong>({@code main}), which calls dialog method with all user interactive functions or runs one
+ * benchmark in the JVM forked by {@code Benchmark}.
  * <br/>
  * 2) <strong>Dialog</strong>({@code dialog}), which used to interact with user. It also changes some values and calls for some functions,
  * correspondingly with user choices.
@@ -39,7 +57,7 @@ public class KirillKorolev {
             algorithm = new AStar(actor);
         PrintStream printStream = new PrintStream(file);
         long start = System.nanoTime();
-        List<Coordinates> result = algorithm.execute(gameMap.getMatrix().get(0).get(0),
+        List<Coordinates> result = algorithm.execute(new Coordinates(0, 0),
                 gameMap.getDeadMansChest().getCoordinates());
         long resultTime = System.nanoTime() - start;
         if (result.isEmpty())
@@ -50,9 +68,7 @@ public class KirillKorolev {
             for(Coordinates coordinates: result)
                 printStream.printf("[%d,%d] ", coordinates.y, coordinates.x);
             printStream.println();
-            if(!algorithm.isKrakenAlive)
-                gameMap.killKraken();
-            gameMap.printMap(printStream, result);
+            gameMap.printMap(printStream, result, algorithm.isKrakenAlive);
             printStream.printf("%d ms", resultTime / 1_000_000);
         }
     }
@@ -75,7 +91,15 @@ public class KirillKorolev {
                 1) Generate from the file "input.txt"
                 2) Generate from the console
                 3) Generate randomly
-                4) Get statistical tests""");
+                4) Get statistical tests
+                5) Get scaling tests
+                6) Get backtracking memo tests
+                7) Get allocation tests
+                8) Get batch tests
+                9) Get cache tests
+                10) Get benchmarks
+                11) Get corpus tests
+                12) Run checks""");
                 mode = scanner.nextInt();
                 switch (mode) {
                     case 1:
@@ -111,20 +135,83 @@ public class KirillKorolev {
                         File statistics = new File("outputStatistics.txt");
                         PrintStream printStream = new PrintStream(statistics);
                         printStream.println("Total statistics:");
-                        StatisticalTest statisticalTest = new StatisticalTest(numberOfTests);
-                        statisticalTest.execute(printStream, AlgorithmValues.A_STAR);
-                        statisticalTest = new StatisticalTest(numberOfTests);
-                        statisticalTest.execute(printStream, AlgorithmValues.A_STAR_SUPER);
-                        statisticalTest = new StatisticalTest(numberOfTests);
-                        statisticalTest.execute(printStream, AlgorithmValues.BACKTRACKING);
-                        statisticalTest = new StatisticalTest(numberOfTests);
-                        statisticalTest.execute(printStream, AlgorithmValues.BACKTRACKING_SUPER);
+                        for (AlgorithmValues algorithmValue: AlgorithmValues.values())
+                            new StatisticalTest(numberOfTests).execute(printStream, algorithmValue);
+                        return;
+                    case 5:
+                        File scaling = new File("outputScaling.txt");
+                        PrintStream scalingStream = new PrintStream(scaling);
+                        scalingStream.println("Scaling statistics:");
+                        new ScalingTest(20).execute(scalingStream, AlgorithmValues.A_STAR,
+                                new int[]{9, 16, 32, 64, 128, 256});
+                        new ScalingTest(20).execute(scalingStream, AlgorithmValues.A_STAR_PRODUCT,
+                                new int[]{9, 16, 32, 64, 128, 256});
+                        new ScalingTest(20).execute(scalingStream, AlgorithmValues.BACKTRACKING,
+                                new int[]{9, 10, 11, 12});
+                        new ScalingTest(20).execute(scalingStream, AlgorithmValues.ITERATIVE_BACKTRACKING,
+                                new int[]{9, 10, 11, 12});
+                        new ScalingTest(20).executeParallel(scalingStream, 11,
+                                new int[]{1, 2, 4, Runtime.getRuntime().availableProcessors()});
+                        return;
+                    case 6:
+                        File memo = new File("outputMemo.txt");
+                        PrintStream memoStream = new PrintStream(memo);
+                        memoStream.println("Memo statistics:");
+                        new MemoTest(300).execute(memoStream, false);
+                        new MemoTest(300).execute(memoStream, true);
+                        return;
+                    case 7:
+                        File allocation = new File("outputAllocation.txt");
+                        PrintStream allocationStream = new PrintStream(allocation);
+                        allocationStream.println("Allocation statistics:");
+                        for (AlgorithmValues algorithmValue: new AlgorithmValues[]{AlgorithmValues.A_STAR,
+                                AlgorithmValues.A_STAR_PRODUCT, AlgorithmValues.A_STAR_BUCKET,
+                                AlgorithmValues.BACKTRACKING, AlgorithmValues.ITERATIVE_BACKTRACKING,
+                                AlgorithmValues.IDA_STAR, AlgorithmValues.WAVEFRONT})
+                            new AllocationTest(1000).execute(allocationStream, algorithmValue, 9);
+                        return;
+                    case 8:
+                        File batch = new File("outputBatch.txt");
+                        PrintStream batchStream = new PrintStream(batch);
+                        batchStream.println("Batch statistics:");
+                        new BatchTest(100).execute(batchStream, 9, 100, 5);
+                        new BatchTest(20).execute(batchStream, 64, 200, 5);
+                        new BatchTest(20).execute(batchStream, 64, 200, 200);
+                        return;
+                    case 9:
+                        File cacheFile = new File("outputCache.txt");
+                        PrintStream cacheStream = new PrintStream(cacheFile);
+                        cacheStream.println("Cache statistics:");
+                        new CacheTest(10000).execute(cacheStream, AlgorithmValues.BACKTRACKING, 500, 1000, 4);
+                        new CacheTest(10000).execute(cacheStream, AlgorithmValues.BACKTRACKING, 2000, 500, 4);
+                        return;
+                    case 10:
+                        File benchmarkFile = new File("outputBenchmark.txt");
+                        PrintStream benchmarkStream = new PrintStream(benchmarkFile);
+                        benchmarkStream.println("Benchmark statistics:");
+                        new Benchmark(3, 5, 10).execute(benchmarkStream, BenchmarkValues.values());
+                        return;
+                    case 11:
+                        File corpusFile = new File("corpus.bin");
+                        if (!corpusFile.exists())
+                            ScenarioCorpus.write(corpusFile.toPath(), 0, 100_000, 9, 9, AlgorithmValues.A_STAR_PRODUCT);
+                        ScenarioCorpus corpus = new ScenarioCorpus(corpusFile.toPath());
+                        PrintStream corpusStream = new PrintStream(new File("outputCorpus.txt"));
+                        corpusStream.println("Corpus statistics:");
+                        for (AlgorithmValues algorithmValue: new AlgorithmValues[]{AlgorithmValues.A_STAR_PRODUCT,
+                                AlgorithmValues.A_STAR, AlgorithmValues.BACKTRACKING})
+                            new StatisticalTest(corpus, ForkJoinPool.commonPool()).execute(corpusStream,
+                                    algorithmValue);
+                        return;
+                    case 12:
+                        PrintStream checksStream = new PrintStream(new File("outputChecks.txt"));
+                        checksStream.println(runChecks(checksStream) ? "All checks passed" : "Some checks failed");
                         return;
                 }
             }catch (Exception exception){
                 System.out.println("Invalid data! Please, try again!");
             }
-        } while (mode > 4 || mode < 1);
+        } while (mode > 12 || mode < 1);
         SpyGlass spyGlass = null;
         int spyGlassType = -1;
         do {
@@ -132,8 +219,8 @@ public class KirillKorolev {
                 System.out.println("Enter spyglass type id(1 - SpyGlass, 2 - SuperSpyGlass):");
                 spyGlassType = scanner.nextInt();
                 switch (spyGlassType) {
-                    case 1 -> spyGlass = new UsualSpyGlass(gameMap.getMatrix());
-                    case 2 -> spyGlass = new SuperSpyGlass(gameMap.getMatrix());
+                    case 1 -> spyGlass = new UsualSpyGlass(gameMap);
+                    case 2 -> spyGlass = new SuperSpyGlass(gameMap);
                 }
             }catch (Exception exception){
                     System.out.println("Invalid data! Please, try again!");
@@ -142,21 +229,58 @@ public class KirillKorolev {
         File fileAStarr = new File("outputAStar.txt"),
                 fileBacktracking = new File("outputBacktracking.txt");
         getResult(fileAStarr, gameMap, spyGlass, false);
-        gameMap.clearMap();
-        switch (spyGlassType) {
-            case 1 -> spyGlass = new UsualSpyGlass(gameMap.getMatrix());
-            case 2 -> spyGlass = new SuperSpyGlass(gameMap.getMatrix());
-        }
         getResult(fileBacktracking, gameMap, spyGlass, true);
     }
 
 
+    /**
+     * <h3>Method to run checks</h3>
+     * Runs the test classes that check their results instead of only printing statistics.
+     * @param printStream stream for results of checks
+     * @return true if all checks passed
+     */
+    private static boolean runChecks(PrintStream printStream){
+        boolean passed = true;
+        printStream.println("Generation checks:");
+        for (int[] size: new int[][]{{9, 9}, {5, 13}, {13, 5}})
+            passed &= new GenerationTest(1000).execute(printStream, size[0], size[1]);
+        for (int[] size: new int[][]{{GameMap.MIN_SIDE, GameMap.MIN_SIDE}, {GameMap.MIN_SIDE, 13}})
+            passed &= new GenerationTest(1000).execute(printStream, size[0], size[1]);
+        for (int[] size: new int[][]{{3, 3}, {2, 9}, {9, 1}})
+            passed &= GenerationTest.executeRejected(printStream, size[0], size[1]);
+        printStream.println("Heap checks:");
+        passed &= new HeapTest(200).execute(printStream, 2000);
+        printStream.println("Allocation checks:");
+        AllocationTest allocationTest = new AllocationTest(200);
+        for (AlgorithmValues algorithmValue: new AlgorithmValues[]{AlgorithmValues.A_STAR_PRODUCT,
+                AlgorithmValues.JUMP_POINT_SEARCH, AlgorithmValues.BIDIRECTIONAL_A_STAR})
+            passed &= allocationTest.check(printStream, algorithmValue, 32, 16);
+        //A* builds the paths of its three searches before it chooses one of them
+        passed &= allocationTest.check(printStream, AlgorithmValues.A_STAR, 32, 64);
+        return passed;
+    }
+
+
     /**
      * <h3>Main method</h3>
+     * With arguments {@code --benchmark NAME WARMUP MEASUREMENT} it is the forked JVM of {@code Benchmark} that runs
+     * one benchmark and prints its iterations. With argument {@code --check} it runs checks and exits with non-zero
+     * status if any of them failed. Otherwise it calls the dialog.
      * @param args Parameters for execution
-     * @throws IOException Exception that can be thrown because of absence of file or other problems with file.
+     * @throws Exception Exception that can be thrown because of absence of file or other problems with file or by
+     * the benchmark.
      */
-    public static void main(String[] args) throws IOException {
+    public static void main(String[] args) throws Exception {
+        if(args.length == 4 && args[0].equals("--benchmark")) {
+            new Benchmark(1, Integer.parseInt(args[2]), Integer.parseInt(args[3])).fork(System.out,
+                    BenchmarkValues.valueOf(args[1]));
+            return;
+        }
+        if(args.length == 1 && args[0].equals("--check")) {
+            if(!runChecks(System.out))
+                System.exit(1);
+            return;
+        }
         dialog();
     }
 }
@@ -189,13 +313,137 @@ enum ObjectValues  {
 
 /**
  * <h2>Enumeration of all algorithms</h2>
- * This is an enumeration that contains all possible all algorithms that mey be executed.
+ * This is an enumeration that contains all possible all algorithms that mey be executed. Each value knows its title
+ * for statistics and which spyglass and algorithm should be created for it.
  */
 enum AlgorithmValues{
-    A_STAR,
-    A_STAR_SUPER,
-    BACKTRACKING,
-    BACKTRACKING_SUPER
+    A_STAR("A* (SPYGLASS)", false),
+    A_STAR_SUPER("A* (SUPER SPYGLASS)", true),
+    BACKTRACKING("Backtracking (SPYGLASS)", false),
+    BACKTRACKING_SUPER("Backtracking (SUPER SPYGLASS)", true),
+    A_STAR_PRODUCT("Product state A* (SPYGLASS)", false),
+    A_STAR_PRODUCT_SUPER("Product state A* (SUPER SPYGLASS)", true),
+    A_STAR_BUCKET("A* with bucket queue (SPYGLASS)", false),
+    A_STAR_BUCKET_SUPER("A* with bucket queue (SUPER SPYGLASS)", true),
+    A_STAR_DECREASE_KEY("A* with decrease key (SPYGLASS)", false),
+    A_STAR_DECREASE_KEY_SUPER("A* with decrease key (SUPER SPYGLASS)", true),
+    ITERATIVE_BACKTRACKING("Iterative backtracking (SPYGLASS)", false),
+    ITERATIVE_BACKTRACKING_SUPER("Iterative backtracking (SUPER SPYGLASS)", true),
+    PARALLEL_BACKTRACKING("Parallel backtracking (SPYGLASS)", false),
+    PARALLEL_BACKTRACKING_SUPER("Parallel backtracking (SUPER SPYGLASS)", true),
+    JUMP_POINT_SEARCH("Jump point search (SPYGLASS)", false),
+    JUMP_POINT_SEARCH_SUPER("Jump point search (SUPER SPYGLASS)", true),
+    BIDIRECTIONAL_A_STAR("Bidirectional A* (SPYGLASS)", false),
+    BIDIRECTIONAL_A_STAR_SUPER("Bidirectional A* (SUPER SPYGLASS)", true),
+    D_STAR_LITE("D* Lite (SPYGLASS)", false),
+    D_STAR_LITE_SUPER("D* Lite (SUPER SPYGLASS)", true),
+    IDA_STAR("IDA* (SPYGLASS)", false),
+    IDA_STAR_SUPER("IDA* (SUPER SPYGLASS)", true),
+    WAVEFRONT("WAVEFRONT (SPYGLASS)", false),
+    WAVEFRONT_SUPER("WAVEFRONT (SUPER SPYGLASS)", true),
+    DISTANCE_FIELD("DISTANCE FIELD (SPYGLASS)", false),
+    DISTANCE_FIELD_SUPER("DISTANCE FIELD (SUPER SPYGLASS)", true);
+
+    public final String title;
+    public final boolean superSpyGlass;
+
+    AlgorithmValues(String title, boolean superSpyGlass) {
+        this.title = title;
+        this.superSpyGlass = superSpyGlass;
+    }
+
+
+    /**
+     * <h3>Create spyglass used by this algorithm</h3>
+     * @param gameMap map to explore
+     * @return new {@code SpyGlass} instance
+     */
+    public SpyGlass getSpyGlass(GameMap gameMap){
+        return getSpyGlass(gameMap.snapshot());
+    }
+
+
+    /**
+     * <h3>Create spyglass used by this algorithm for the snapshot of the map</h3>
+     * @param gameMap snapshot of the map to explore
+     * @return new {@code SpyGlass} instance
+     */
+    public SpyGlass getSpyGlass(MapSnapshot gameMap){
+        return superSpyGlass ? new SuperSpyGlass(gameMap) : new UsualSpyGlass(gameMap);
+    }
+
+
+    /**
+     * <h3>Create algorithm instance for given actor</h3>
+     * @param actor actor used in algorithm execution
+     * @return new {@code Algorithm} instance
+     */
+    public Algorithm getAlgorithm(Actor actor){
+        return switch (this) {
+            case A_STAR, A_STAR_SUPER -> new AStar(actor);
+            case BACKTRACKING, BACKTRACKING_SUPER -> new Backtracking(actor);
+            case A_STAR_PRODUCT, A_STAR_PRODUCT_SUPER -> new AStar(actor, true);
+            case A_STAR_BUCKET, A_STAR_BUCKET_SUPER -> new AStar(actor, false, OpenSetValues.BUCKET_QUEUE);
+            case A_STAR_DECREASE_KEY, A_STAR_DECREASE_KEY_SUPER ->
+                    new AStar(actor, false, OpenSetValues.FIBONACCI_HEAP, true);
+            case ITERATIVE_BACKTRACKING, ITERATIVE_BACKTRACKING_SUPER -> new IterativeBacktracking(actor);
+            case PARALLEL_BACKTRACKING, PARALLEL_BACKTRACKING_SUPER -> new ParallelBacktracking(actor);
+            case JUMP_POINT_SEARCH, JUMP_POINT_SEARCH_SUPER -> new JumpPointSearch(actor);
+            case BIDIRECTIONAL_A_STAR, BIDIRECTIONAL_A_STAR_SUPER -> new BidirectionalAStar(actor);
+            case D_STAR_LITE, D_STAR_LITE_SUPER -> new DStarLite(actor);
+            case IDA_STAR, IDA_STAR_SUPER -> new IDAStar(actor);
+            case WAVEFRONT, WAVEFRONT_SUPER -> new WavefrontSearch(actor);
+            case DISTANCE_FIELD, DISTANCE_FIELD_SUPER -> new DistanceFieldSearch(actor);
+        };
+    }
+}
+
+
+/**
+ * <h2>Enumeration of open set implementations</h2>
+ * This is an enumeration of priority queues that can be used by A* as an open set. The binary heap keeps indices of
+ * cells or states in arrays and allocates nothing per node, other queues allocate a {@code Node} on each insertion.
+ */
+enum OpenSetValues{
+    BINARY_HEAP,
+    FIBONACCI_HEAP,
+    BUCKET_QUEUE
+}
+
+
+/**
+ * <h2>Enumeration of tables of best values for backtracking</h2>
+ * This is an enumeration of the ways backtracking remembers the shortest lengths of paths: one value per cell, one
+ * value per state (cell, haveRum, krakenAlive), or one value per state with cutting off the states that are dominated
+ * by better states of the same cell.
+ */
+enum MemoValues{
+    CELL,
+    STATE,
+    DOMINANCE
+}
+
+
+/**
+ * <h2>Enumeration of benchmarks</h2>
+ * This is an enumeration of the operations measured by {@code Benchmark}: execution of A* and backtracking on the
+ * corpus of maps, operations of the Fibonacci heap and generation of maps with forming of their matrices.
+ */
+enum BenchmarkValues{
+    A_STAR_EXECUTE("AStar.execute"),
+    BACKTRACKING_EXECUTE("Backtracking.execute"),
+    HEAP_INSERT("PriorityQueue.insert"),
+    HEAP_EXTRACT_MIN("PriorityQueue.extractMin"),
+    HEAP_DECREASE_KEY("PriorityQueue.decreaseKey"),
+    HEAP_CONSOLIDATE("PriorityQueue.consolidate"),
+    MAP_GENERATE("GameMap.generate"),
+    MAP_MAKE_MATRIX("GameMap.makeMatrix");
+
+    public final String title;
+
+    BenchmarkValues(String title) {
+        this.title = title;
+    }
 }
 
 
@@ -230,6 +478,18 @@ class Coordinates {
     }
 
 
+    @Override
+    public boolean equals(Object object) {
+        return object instanceof Coordinates coordinates && equals(coordinates);
+    }
+
+
+    @Override
+    public int hashCode() {
+        return 31 * y + x;
+    }
+
+
     /**
      * <h3>Update the coordinates with new X and Y coordiantes</h3>
      * @param y coordinate on Y-axis
@@ -242,22 +502,23 @@ class Coordinates {
 
 
     /**
-     * <h3>Get an element of matrix by coordinates</h3>
-     * @param list given matrix
-     * @return {@code GameMap.Node} as result
+     * <h3>Get index of the cell with these coordinates in flat map storage</h3>
+     * @param width number of columns of the map
+     * @return {@code int} index of the cell
      */
-    public GameMap.Node getByCoordinates(List<List<GameMap.Node>> list){
-        return list.get(y).get(x);
+    public int toIndex(int width){
+        return y * width + x;
     }
 
 
     /**
-     * Set element in matix by coordinates
-     * @param list given matrix
-     * @param node given {@code GameMap.Node} to set
+     * <h3>Get coordinates of the cell with given index in flat map storage</h3>
+     * @param index index of the cell
+     * @param width number of columns of the map
+     * @return new {@code Coordinates} instance of the cell
      */
-    public void setByCoordinates(List<List<GameMap.Node>> list, GameMap.Node node){
-        list.get(y).set(x, node);
+    public static Coordinates fromIndex(int index, int width){
+        return new Coordinates(index / width, index % width);
     }
 
 
@@ -291,6 +552,17 @@ class Coordinates {
         return new Coordinates(this.y + y, this.x + x);
     }
 
+
+    /**
+     * <h3>Check if coordinates are inside of the map with given size</h3>
+     * @param height number of rows of the map
+     * @param width number of columns of the map
+     * @return {@code boolean} result of check
+     */
+    public boolean inBoundaries(int height, int width){
+        return 0 <= x && x < width && 0 <= y && y < height;
+    }
+
 }
 
 
@@ -306,6 +578,8 @@ abstract class Algorithm{
     public Actor actor;
     private LinkedList<Coordinates> best_path;
     public boolean anyPathFound = false;
+    //number of nodes expanded by all executions of this instance
+    long expandedNodes;
 
 
     /**
@@ -320,14 +594,36 @@ abstract class Algorithm{
     }
 
 
+    /**
+     * <h3>Get heuristic distance between cell and point</h3>
+     * The same heuristic as for two points, but the first point is given by index of the cell
+     * @param from index of the first cell
+     * @param to second point {@code Coordinates}
+     * @return heuristic distance {@code int} value
+     */
+    public int getHeuristic(int from, Coordinates to){
+        return Math.max(Math.abs(to.x - from % actor.getWidth()), Math.abs(to.y - from / actor.getWidth()));
+    }
+
+
     /**
      * <h3>Check if coordinates in map boundaries</h3>
      * @param coordinates given {@code Coordinates}
      * @return {@code boolean} result flag
      */
-    public static boolean inBoundaries(Coordinates coordinates){
-        return 0 <= coordinates.x && coordinates.x <= 8 &&
-                0 <= coordinates.y && coordinates.y <= 8;
+    public boolean inBoundaries(Coordinates coordinates){
+        return coordinates.inBoundaries(actor.getHeight(), actor.getWidth());
+    }
+
+
+    /**
+     * <h3>Check if cell with given coordinates in map boundaries</h3>
+     * @param y coordinate on Y-axis
+     * @param x coordinate on X-axis
+     * @return {@code boolean} result flag
+     */
+    public boolean inBoundaries(int y, int x){
+        return 0 <= x && x < actor.getWidth() && 0 <= y && y < actor.getHeight();
     }
 
 
@@ -360,29 +656,20 @@ abstract class Algorithm{
      * @return result list of coordinates in path
      */
     public LinkedList<Coordinates> getPath(Coordinates start, Coordinates target){
-        GameMap.Node tempNode = target.getByCoordinates(actor.getMapInMemory());
         LinkedList<Coordinates> result = new LinkedList<>();
-        if(tempNode != null) {
-            while (tempNode != null && !tempNode.getCoordinates().equals(start)) {
-                result.addFirst(tempNode.getCoordinates());
-                tempNode = tempNode.getParent();
+        int cell = actor.index(target), startCell = actor.index(start);
+        if(actor.isKnown(cell)) {
+            while (cell != -1 && cell != startCell) {
+                result.addFirst(actor.toCoordinates(cell));
+                cell = actor.parents[cell];
             }
-            if(tempNode != null)
-                result.addFirst(tempNode.getCoordinates());
+            if(cell != -1)
+                result.addFirst(actor.toCoordinates(cell));
         }
         return result;
     }
 
 
-    /**
-     * <h3>Get {@code GameMap.Node} from map in memory by coordinates</h3>
-     * @param coordinates given {@code Coordinates} to get value from
-     * @return {@code GameMap.Node} result
-     */
-    public GameMap.Node getMatrixNode(Coordinates coordinates){
-        return coordinates.getByCoordinates(this.actor.getMapInMemory());
-    }
-
     /**
      * <h3>Best path value setter</h3>
      * @param best_path given new <code>LinkedList<Coordiantes></code> value}
@@ -393,18 +680,17 @@ abstract class Algorithm{
 
     /**
      * <h3>Check if kraken placed on sum of given coordinates with displacement</h3>
-     * @param coordinates given {@code Coordinates} in matrix
+     * @param cell index of the cell in matrix
      * @param array specific array of displacements for check
      * @return {@code boolean} result of check for Kraken on given area
      */
-    boolean checkForKrakenOnArray(Coordinates coordinates, int[][] array){
-        for (int[] cell : array) {
-            Coordinates sum = coordinates.getSum(cell[0], cell[1]);
-            if (inBoundaries(sum)) {
-                if (sum.getByCoordinates(actor.getMapInMemory()) != null &&
-                        (sum.getByCoordinates(actor.getMapInMemory()).getId() == ObjectValues.KRAKEN.value ||
-                                sum.getByCoordinates(actor.getMapInMemory()).getId() == ObjectValues.KRAKEN_AND_ROCK.value)
-                )
+    boolean checkForKrakenOnArray(int cell, int[][] array){
+        int y = cell / actor.getWidth(), x = cell % actor.getWidth();
+        for (int[] displacement : array) {
+            if (inBoundaries(y + displacement[0], x + displacement[1])) {
+                int index = cell + displacement[0] * actor.getWidth() + displacement[1];
+                if (actor.isKnown(index) && (actor.getId(index) == ObjectValues.KRAKEN.value ||
+                        actor.getId(index) == ObjectValues.KRAKEN_AND_ROCK.value))
                     return true;
             }
         }
@@ -418,7 +704,17 @@ abstract class Algorithm{
      * @return {@code boolean} result of check
      */
     boolean isKrakenSafe(Coordinates coordinates){
-        return checkForKrakenOnArray(coordinates, this.krakenSafe);
+        return isKrakenSafe(actor.index(coordinates));
+    }
+
+
+    /**
+     * <h3>Method to check whether the cell is placed on diagonal from kraken</h3>
+     * @param cell index of the cell to check
+     * @return {@code boolean} result of check
+     */
+    boolean isKrakenSafe(int cell){
+        return checkForKrakenOnArray(cell, this.krakenSafe);
     }
 
 
@@ -428,21 +724,68 @@ abstract class Algorithm{
      * @return {@code boolean} flag result of check
      */
     boolean isKrakenPerception(Coordinates coordinates){
-        if(checkForKrakenOnArray(coordinates, this.krakenPerception))
+        return isKrakenPerception(actor.index(coordinates));
+    }
+
+
+    /**
+     * <h3>Check whether the cell is in Kraken perception zone</h3>
+     * @param cell index of the cell for check
+     * @return {@code boolean} flag result of check
+     */
+    boolean isKrakenPerception(int cell){
+        if(checkForKrakenOnArray(cell, this.krakenPerception))
             return true;
-        if(inBoundaries(coordinates))
-            return coordinates.getByCoordinates(actor.getMapInMemory()).getId() == ObjectValues.KRAKEN.value;
-        return false;
+        return actor.getId(cell) == ObjectValues.KRAKEN.value;
+    }
+
+
+    /**
+     * <h3>Get index of the search state</h3>
+     * Each cell has four states that differ by rum and Kraken flags, so states of one cell are placed together.
+     * @param cell index of the cell
+     * @param haveRum whether actor has rum in this state
+     * @param krakenAlive whether Kraken is alive in this state
+     * @return {@code int} index of the state
+     */
+    static int state(int cell, boolean haveRum, boolean krakenAlive){
+        return cell << 2 | (haveRum ? 2 : 0) | (krakenAlive ? 1 : 0);
+    }
+
+
+    /**
+     * <h3>Check if the cell can be entered in the search over states</h3>
+     * Safe cells can be always entered, cells of Kraken perception zone only after Kraken is killed.
+     * @param cell index of the cell
+     * @param krakenAlive whether Kraken is alive
+     * @return {@code boolean} result flag
+     */
+    boolean canEnter(int cell, boolean krakenAlive){
+        return actor.howDanger(cell) == 0 || !krakenAlive && actor.howDanger(cell) == 1 && isKrakenPerception(cell);
+    }
+
+
+    /**
+     * <h3>Enter the cell and get the new state</h3>
+     * Actor gets rum on Tortuga and kills Kraken from the diagonal cell if he has rum.
+     * @param cell index of the cell
+     * @param from state before entering the cell, only its rum and Kraken flags are used
+     * @return {@code int} index of the state in the cell
+     */
+    int enter(int cell, int from){
+        actor.explore(cell);
+        boolean haveRum = (from & 2) != 0 || actor.getId(cell) == ObjectValues.TORTUGA.value;
+        return state(cell, haveRum, (from & 1) != 0 && !(haveRum && isKrakenSafe(cell)));
     }
 
 
     /**
      * <h3>Abstract method of algorithm execution</h3>
-     * @param currentNode given {@code GameMap.Node}
+     * @param start given {@code Coordinates} of start
      * @param target given {@code Coordinates} target to reach
      * @return {@code LinkedList} path result
      */
-    abstract LinkedList<Coordinates> execute(GameMap.Node currentNode, Coordinates target);
+    abstract LinkedList<Coordinates> execute(Coordinates start, Coordinates target);
 }
 
 
@@ -452,8 +795,198 @@ abstract class Algorithm{
  * Has specific methods that are used only for this algorithm ({@code aStar} and {@code clear}).
  */
 class AStar extends Algorithm{
+    //flag of the mode that searches states (cell, haveRum, krakenAlive) in one pass instead of three chained searches
+    private final boolean productState;
+    private final OpenSetValues openSetValue;
+    //flag of the mode that keeps one node of open set per cell and decreases its key instead of inserting duplicates
+    private final boolean decreaseKey;
+    //open set reused by the searches of this instance
+    private final OpenSet openSet;
+    //g values and parents of states in product state mode and closed flags of cells or states, reused by searches
+    final int[] stateG, stateParents;
+    final boolean[] closed;
+
     AStar(Actor actor) {
+        this(actor, false);
+    }
+
+    AStar(Actor actor, boolean productState) {
+        this(actor, productState, OpenSetValues.BINARY_HEAP);
+    }
+
+    AStar(Actor actor, boolean productState, OpenSetValues openSetValue) {
+        this(actor, productState, openSetValue, false);
+    }
+
+    AStar(Actor actor, boolean productState, OpenSetValues openSetValue, boolean decreaseKey) {
         super(actor);
+        this.productState = productState;
+        this.openSetValue = openSetValue;
+        this.decreaseKey = decreaseKey;
+        int size = actor.getHeight() * actor.getWidth() << 2;
+        this.openSet = createOpenSet(size);
+        this.stateG = productState ? new int[size] : null;
+        this.stateParents = productState ? new int[size] : null;
+        this.closed = new boolean[productState ? size : size >> 2];
+    }
+
+
+    /**
+     * <h3>Create array of open set nodes for each cell or state</h3>
+     * @param size number of cells or states
+     * @return array of nodes or null if duplicates are inserted instead of decreasing the key
+     */
+    @SuppressWarnings("unchecked")
+    Node<Integer, Integer>[] createHandles(int size){
+        return decreaseKey ? (Node<Integer, Integer>[]) new Node<?, ?>[size] : null;
+    }
+
+
+    /**
+     * <h3>Open set over nodes of {@code IPriorityQueue}</h3>
+     * If there is a node for the value in the open set its key is decreased, otherwise a new node is inserted. Without
+     * the decrease key mode duplicates are inserted and the caller skips the values that are already closed.
+     */
+    private class NodeOpenSet implements OpenSet{
+        private IPriorityQueue<Integer, Integer> queue;
+        private final Node<Integer, Integer>[] handles;
+
+        NodeOpenSet(int size) {
+            this.handles = createHandles(size);
+        }
+
+        @Override
+        public void clear(IntUnaryOperator secondaryKey) {
+            if(openSetValue == OpenSetValues.BUCKET_QUEUE) {
+                queue = new BucketQueue<>(secondaryKey::applyAsInt);
+            } else {
+                Comparator<Node<Integer, Integer>> comparator = (x, y) ->
+                        x.getKey() > y.getKey() ? 1 : (x.getKey().equals(y.getKey()) ?
+                                (Integer.compare(secondaryKey.applyAsInt(x.getValue()),
+                                        secondaryKey.applyAsInt(y.getValue())))
+                                : -1);
+                queue = new PriorityQueue<>(comparator);
+            }
+            if(handles != null)
+                Arrays.fill(handles, null);
+        }
+
+        @Override
+        public void relax(int value, int key) {
+            if(handles == null) {
+                queue.insert(new Node<>(key, value));
+            } else if(handles[value] == null) {
+                handles[value] = new Node<>(key, value);
+                queue.insert(handles[value]);
+            } else {
+                try {
+                    queue.decreaseKey(handles[value], key);
+                } catch (Exception exception) {
+                    throw new IllegalStateException(exception);
+                }
+            }
+        }
+
+        @Override
+        public int minKey() {
+            return queue.findMin().getKey();
+        }
+
+        @Override
+        public int extractMin() {
+            return queue.extractMin().getValue();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return queue.isEmpty();
+        }
+    }
+
+
+    /**
+     * <h3>Create an empty open set with the chosen implementation</h3>
+     * @param size number of cells or states
+     * @return new {@code OpenSet}
+     */
+    OpenSet createOpenSet(int size){
+        return openSetValue == OpenSetValues.BINARY_HEAP ? new IntBinaryHeap(size) : new NodeOpenSet(size);
+    }
+
+
+    /**
+     * <h3>Prepare the open set of this instance for the next search</h3>
+     * Keys of the open set are f values, ties are broken by heuristic distance from the cell of the value to target.
+     * @param cell function that gives index of the cell from the value of node
+     * @param target {@code Coordinates} of target to reach
+     * @return empty {@code OpenSet}
+     */
+    OpenSet clearOpenSet(IntUnaryOperator cell, Coordinates target){
+        openSet.clear(value -> getHeuristic(cell.applyAsInt(value), target));
+        return openSet;
+    }
+
+
+    /**
+     * <h3>A* over the product of cells and rum and Kraken flags</h3>
+     * The search key is the state ({@code cell}, {@code haveRum}, {@code krakenAlive}), so a cell may be reached
+     * several times with different flags and the route through Tortuga is found in the same pass as the direct one.
+     * Actor gets rum when he stands on Tortuga and kills Kraken as soon as he stands on a diagonal from it with rum.
+     * After that the cells of Kraken and its perception zone can be entered.
+     * @param start start {@code Coordinates} for the algorithm
+     * @param target {@code Coordinates} of target to reach
+     * @return {@code LinkedList} shortest path or list of zero length
+     */
+    public LinkedList<Coordinates> productAStar(Coordinates start, Coordinates target){
+        LinkedList<Coordinates> result = new LinkedList<>();
+        int startCell = actor.index(start), targetCell = actor.index(target);
+        if(actor.howDanger(startCell) != 0)
+            return result;
+        int[] currentG = stateG, parents = stateParents;
+        Arrays.fill(currentG, Integer.MAX_VALUE);
+        Arrays.fill(closed, false);
+        actor.setCoordinates(start);
+        actor.explore();
+        boolean startRum = actor.getId(startCell) == ObjectValues.TORTUGA.value;
+        int startState = state(startCell, startRum, !(startRum && isKrakenSafe(start)));
+        currentG[startState] = 0;
+        parents[startState] = -1;
+        OpenSet openSet = clearOpenSet(state -> state >> 2, target);
+        openSet.relax(startState, getHeuristic(start, target));
+        while (!openSet.isEmpty()){
+            int cameFrom = openSet.extractMin();
+            if(closed[cameFrom])
+                continue;
+            closed[cameFrom] = true;
+            ++expandedNodes;
+            boolean haveRum = (cameFrom & 2) != 0, krakenAlive = (cameFrom & 1) != 0;
+            int width = actor.getWidth(), y = (cameFrom >> 2) / width, x = (cameFrom >> 2) % width;
+            for (int[] possibleMove : possibleMoves) {
+                if(!inBoundaries(y + possibleMove[0], x + possibleMove[1]))
+                    continue;
+                int cameTo = (cameFrom >> 2) + possibleMove[0] * width + possibleMove[1];
+                if(cameTo == targetCell && actor.howDanger(cameTo) == 0) {
+                    this.anyPathFound = true;
+                    this.isKrakenAlive = krakenAlive;
+                    result.addFirst(target);
+                    for (int state = cameFrom; state != -1; state = parents[state])
+                        result.addFirst(actor.toCoordinates(state >> 2));
+                    return result;
+                }
+                if(actor.howDanger(cameTo) == 0 || !krakenAlive && actor.howDanger(cameTo) == 1 &&
+                        isKrakenPerception(cameTo)) {
+                    actor.explore(cameTo);
+                    boolean nextRum = haveRum || actor.getId(cameTo) == ObjectValues.TORTUGA.value;
+                    int next = state(cameTo, nextRum, krakenAlive && !(nextRum && isKrakenSafe(cameTo)));
+                    if(!closed[next] && currentG[cameFrom] + 1 < currentG[next]) {
+                        currentG[next] = currentG[cameFrom] + 1;
+                        parents[next] = cameFrom;
+                        openSet.relax(next, currentG[next] + getHeuristic(cameTo, target));
+                    }
+                }
+            }
+        }
+        return result;
     }
 
 
@@ -464,61 +997,57 @@ class AStar extends Algorithm{
      * it in the closed set. Then we visit all its children which are not in the closed set. This is task specific
      * version of an algorithm that also provides an ability for an actor to get rum from tortuga and kill Kraken from
      * diagonal cells and then walk through it because it is disabled.
-     * @param currentNode start {@code GameMap.Node} for the algorithm
+     * @param start start {@code Coordinates} for the algorithm
      * @param target {@code Coordinates} of target to reach
      */
-    public void aStar(GameMap.Node currentNode, Coordinates target){
-        boolean [][]closed = new boolean[9][9];
-        currentNode.setCurrentG(0);
-        currentNode.setCurrentF(getHeuristic(currentNode.getCoordinates(), target));
-        actor.setCoordinates(currentNode.getCoordinates());
+    public void aStar(Coordinates start, Coordinates target){
+        Arrays.fill(closed, false);
+        int startCell = actor.index(start), targetCell = actor.index(target);
+        actor.currentG[startCell] = 0;
+        actor.currentF[startCell] = getHeuristic(start, target);
+        actor.setCoordinates(start);
         actor.explore();
-        Comparator<Node<Integer,  GameMap.Node>> comparator = (x, y) ->
-                x.getKey() > y.getKey() ? 1 : (x.getKey().equals(y.getKey()) ?
-                        (Integer.compare(getHeuristic(x.getValue().getCoordinates(), target),
-                                getHeuristic(y.getValue().getCoordinates(), target)))
-                        : -1);
-        PriorityQueue<Integer,  GameMap.Node> openSet = new PriorityQueue<>(comparator);
-        openSet.insert(new Node<>(0, currentNode));
+        OpenSet openSet = clearOpenSet(cell -> cell, target);
+        openSet.relax(startCell, 0);
         while (!openSet.isEmpty()){
-            Node<Integer, GameMap.Node> currentEntry = openSet.extractMin();
-            currentEntry.getValue().getCoordinates().setByCoordinates(closed, true);
-            GameMap.Node cameFrom = currentEntry.getValue();
-            if(cameFrom.getId() == ObjectValues.TORTUGA.value) {
-                cameFrom.haveRum = true;
-                if (isKrakenSafe(cameFrom.getCoordinates()))
-                    cameFrom.krakenAlive = false;
+            int cameFrom = openSet.extractMin();
+            closed[cameFrom] = true;
+            ++expandedNodes;
+            int width = actor.getWidth(), y = cameFrom / width, x = cameFrom % width;
+            if(actor.getId(cameFrom) == ObjectValues.TORTUGA.value) {
+                actor.haveRum[cameFrom] = true;
+                if (isKrakenSafe(cameFrom))
+                    actor.krakenAlive[cameFrom] = false;
             }
             for (int[] possibleMove : possibleMoves) {
-                Coordinates coordinates = cameFrom.getCoordinates().getSum(possibleMove[0], possibleMove[1]);
-                if(inBoundaries(coordinates)) {
-                    GameMap.Node cameTo = coordinates.getByCoordinates(actor.getMapInMemory());
-                    if (coordinates.equals(target) && cameTo.howDanger() == 0) {
-                        coordinates.getByCoordinates(actor.getMapInMemory()).setParent(cameFrom);
+                if(inBoundaries(y + possibleMove[0], x + possibleMove[1])) {
+                    int cameTo = cameFrom + possibleMove[0] * width + possibleMove[1];
+                    if (cameTo == targetCell && actor.howDanger(cameTo) == 0) {
+                        actor.parents[cameTo] = cameFrom;
                         this.anyPathFound = true;
-                        cameTo.krakenAlive = cameFrom.krakenAlive;
+                        actor.krakenAlive[cameTo] = actor.krakenAlive[cameFrom];
                         return;
-                    } else if(!coordinates.getByCoordinates(closed)){
-                        if(cameTo.howDanger() == 0 || (!cameFrom.krakenAlive ||
-                                isKrakenSafe(cameFrom.getCoordinates()) && cameFrom.haveRum)
-                                && cameTo.howDanger() == 1 && isKrakenPerception(cameTo.getCoordinates())) {
-                            actor.setCoordinates(coordinates);
-                            actor.explore();
-                            if(cameTo.getId() == ObjectValues.TORTUGA.value){
-                                cameTo.haveRum = true;
-                                if (isKrakenSafe(cameTo.getCoordinates()))
-                                    cameTo.krakenAlive = false;
+                    } else if(!closed[cameTo]){
+                        if(actor.howDanger(cameTo) == 0 || (!actor.krakenAlive[cameFrom] ||
+                                isKrakenSafe(cameFrom) && actor.haveRum[cameFrom])
+                                && actor.howDanger(cameTo) == 1 && isKrakenPerception(cameTo)) {
+                            actor.explore(cameTo);
+                            if(actor.getId(cameTo) == ObjectValues.TORTUGA.value){
+                                actor.haveRum[cameTo] = true;
+                                if (isKrakenSafe(cameTo))
+                                    actor.krakenAlive[cameTo] = false;
                             }
-                            int newCurrentG = cameFrom.getCurrentG() + 1;
-                            int oldF = cameTo.getCurrentF();
-                            int newCurrentF = newCurrentG + getHeuristic(coordinates, target);
-                            if (cameTo.getCurrentG() == Integer.MAX_VALUE || oldF > newCurrentF) {
-                                openSet.insert(new Node<>(newCurrentF, cameTo));
-                                cameTo.setCurrentG(newCurrentG);
-                                cameTo.setCurrentF(newCurrentF);
-                                cameTo.setParent(cameFrom);
-                                cameTo.haveRum = cameFrom.haveRum;
-                                cameTo.krakenAlive = !(cameFrom.haveRum && isKrakenSafe(cameFrom.getCoordinates())) && cameFrom.krakenAlive;
+                            int newCurrentG = actor.currentG[cameFrom] + 1;
+                            int oldF = actor.currentF[cameTo];
+                            int newCurrentF = newCurrentG + getHeuristic(cameTo, target);
+                            if (actor.currentG[cameTo] == Integer.MAX_VALUE || oldF > newCurrentF) {
+                                openSet.relax(cameTo, newCurrentF);
+                                actor.currentG[cameTo] = newCurrentG;
+                                actor.currentF[cameTo] = newCurrentF;
+                                actor.parents[cameTo] = cameFrom;
+                                actor.haveRum[cameTo] = actor.haveRum[cameFrom];
+                                actor.krakenAlive[cameTo] = !(actor.haveRum[cameFrom] &&
+                                        isKrakenSafe(cameFrom)) && actor.krakenAlive[cameFrom];
                             }
                         }
                     }
@@ -531,45 +1060,46 @@ class AStar extends Algorithm{
     /**
      * <h3>AStar execution algorithm</h3>
      * This is a driver code part for the AStar algorithm it find ways both through Tortuga and without it and then
-     * chooses the best one from them if any of them exists.
-     * @param currentNode given {@code GameMap.Node}
-     * @param target      given {@code Coordinates} target to reach
+     * chooses the best one from them if any of them exists. In product state mode it runs a single
+     * {@code productAStar} instead.
+     * @param start  given {@code Coordinates} of start
+     * @param target given {@code Coordinates} target to reach
      * @return {@code LinkedList} resul path
      */
     @Override
-    public LinkedList<Coordinates> execute(GameMap.Node currentNode, Coordinates target){
-        if(currentNode.howDanger() == 0) {
-            boolean tortugaOnStart = currentNode.getId() == ObjectValues.TORTUGA.value;
-            actor.setCoordinates(currentNode.getCoordinates());
+    public LinkedList<Coordinates> execute(Coordinates start, Coordinates target){
+        if(productState)
+            return productAStar(start, target);
+        int startCell = actor.index(start), targetCell = actor.index(target),
+                tortugaCell = actor.index(actor.findTortuga());
+        if(actor.howDanger(startCell) == 0) {
+            boolean tortugaOnStart = actor.getId(startCell) == ObjectValues.TORTUGA.value;
+            actor.setCoordinates(start);
             actor.explore();
             if(tortugaOnStart)
-                for (int i = 0; i < 9; ++i)
-                    for (int j = 0; j < 9; ++j) {
-                        GameMap.Node node = new Coordinates(i, j).getByCoordinates(actor.getMapInMemory());
-                        if (node != null)
-                            node.haveRum = true;
-                    }
+                for (int cell = 0; cell < actor.getHeight() * actor.getWidth(); ++cell)
+                    if (actor.isKnown(cell))
+                        actor.haveRum[cell] = true;
             boolean withTortugaAlive = true, withoutTortugaAlive = true;
-            aStar(currentNode, target);
-            if (target.getByCoordinates(actor.getMapInMemory()) != null)
-                withoutTortugaAlive = target.getByCoordinates(actor.getMapInMemory()).krakenAlive;
+            aStar(start, target);
+            if (actor.isKnown(targetCell))
+                withoutTortugaAlive = actor.krakenAlive[targetCell];
             LinkedList<Coordinates> withoutTortuga = null;
             LinkedList<Coordinates> toTortuga = null;
-            if (anyPathFound) withoutTortuga = getPath(currentNode.getCoordinates(), target);
+            if (anyPathFound) withoutTortuga = getPath(start, target);
             clear(true);
             this.anyPathFound = false;
-            aStar(actor.findTortuga().getByCoordinates(actor.getMapInMemory()), target);
+            aStar(actor.findTortuga(), target);
             LinkedList<Coordinates> fromTortuga = null;
             if(anyPathFound) fromTortuga = getPath(actor.findTortuga(), target);
-            if (target.getByCoordinates(actor.getMapInMemory()) != null && anyPathFound) {
+            if (actor.isKnown(targetCell) && anyPathFound) {
                 clear(false);
                 this.anyPathFound = false;
-                aStar(currentNode, actor.findTortuga());
+                aStar(start, actor.findTortuga());
                 if(this.anyPathFound) {
-                    toTortuga = getPath(currentNode.getCoordinates(), actor.findTortuga());
-                    if (target.getByCoordinates(actor.getMapInMemory()) != null) {
-                        withTortugaAlive = !target.getByCoordinates(actor.getMapInMemory()).krakenAlive ||
-                                !actor.findTortuga().getByCoordinates(actor.getMapInMemory()).krakenAlive;
+                    toTortuga = getPath(start, actor.findTortuga());
+                    if (actor.isKnown(targetCell)) {
+                        withTortugaAlive = !actor.krakenAlive[targetCell] || !actor.krakenAlive[tortugaCell];
                     }
                 }
                 else
@@ -607,16 +1137,13 @@ class AStar extends Algorithm{
      * @param haveRum which value of {@code haveRum} to set for all cells
      */
     void clear(boolean haveRum){
-        for (int i = 0; i < 9; ++i) {
-            for (int j = 0; j < 9; ++j) {
-                GameMap.Node node = new Coordinates(i, j).getByCoordinates(actor.getMapInMemory());
-                if (node != null) {
-                    node.krakenAlive = true;
-                    node.haveRum = haveRum;
-                    node.setParent(null);
-                    node.setCurrentG(Integer.MAX_VALUE);
-                    node.setCurrentF(Integer.MAX_VALUE);
-                }
+        for (int cell = 0; cell < actor.getHeight() * actor.getWidth(); ++cell) {
+            if (actor.isKnown(cell)) {
+                actor.krakenAlive[cell] = true;
+                actor.haveRum[cell] = haveRum;
+                actor.parents[cell] = -1;
+                actor.currentG[cell] = Integer.MAX_VALUE;
+                actor.currentF[cell] = Integer.MAX_VALUE;
             }
         }
     }
@@ -624,1143 +1151,4738 @@ class AStar extends Algorithm{
 
 
 /**
- * <h2>Backtracking class</h2></h2>
- * The class for Backtracking algorithm, which is based on DFS algorithm. It has derived constructor and can be executed
- * by overridden method {@code execute}. Has specific methods that are used only for this algorithm:
- * <br/>
- * 1) <strong>Backtracking</strong>({@code backtracking}), which is recursive method that delivers main functionality.
- * <br/>
- * 2) <strong>Clear visited cells</strong>({@code clearVisited}), which sets all the visited flags to false. It is
- * meaningful because recursive {@code backtracking} is called several time, so it shouldn't know anything about
- * previous execution.
- * <br/>
- * 3) <strong>Visit current coordinates</strong>({@code visitedCoordinates}), which is used for visiting the cell and
- * checking all of the conditions.
- *<br/>
- * 4) <strong>Check existence of path to the given target</strong>({@code pathExists}), which check whether we can find
- * path to the target from the start point or not.
+ * <h2>Jump point search class</h2>
+ * A* over the same states as {@code productAStar}, but the open set gets only jump points instead of all neighbours
+ * of the cell. Jump point is a cell where the shortest path may turn because of an obstacle next to it, a cell where
+ * rum or Kraken flags change, or the target. Cells between two jump points are scanned in a straight or diagonal line
+ * without touching the open set, so on the open sea only a few nodes are inserted and extracted. The pruning rules
+ * are the usual ones for the grid with allowed corner cutting, they keep one of the shortest paths for diagonal moves
+ * of the same cost as straight ones too. After the change of flags the cell is expanded in all directions, because
+ * obstacles are different for the new flags.
  */
-class Backtracking extends Algorithm{
+class JumpPointSearch extends AStar{
+    //directions to search from the jump point indexed by the direction from the parent and by the forced neighbours
+    private static final int[][][][] PRUNED_DIRECTIONS = prunedDirections();
+    private int targetCell;
+
+    JumpPointSearch(Actor actor) {
+        this(actor, OpenSetValues.BINARY_HEAP);
+    }
 
-    short[][] best_values = new short[9][9];
+    JumpPointSearch(Actor actor, OpenSetValues openSetValue) {
+        super(actor, true, openSetValue);
+    }
 
 
     /**
-     * <h3>Constructor for a backtracking algorithm instance</h3>
-     * @param actor given {@code Actor} for an algorithm execution
+     * <h3>Check if the cell can be entered</h3>
+     * @param y coordinate on Y-axis
+     * @param x coordinate on X-axis
+     * @param krakenAlive whether Kraken is alive
+     * @return {@code boolean} result flag, cells out of the map are not free
      */
-    public Backtracking(Actor actor) {
-        super(actor);
-        for (short[] best_value : best_values) Arrays.fill(best_value, Short.MAX_VALUE);
+    private boolean isFree(int y, int x, boolean krakenAlive){
+        return inBoundaries(y, x) && canEnter(y * actor.getWidth() + x, krakenAlive);
     }
 
 
     /**
-     * <h3>Clear all visited cells for future executions</h3>
+     * <h3>Move in the direction until the jump point</h3>
+     * @param cell index of the cell to move from
+     * @param dy direction on Y-axis
+     * @param dx direction on X-axis
+     * @param from state in the cell to move from
+     * @return {@code int} index of the state in the jump point or -1 if there is no jump point in this direction
      */
-    private void clearVisited(){
-        for (int i = 0; i < 9; ++i) {
-            for (int j = 0; j < 9; ++j) {
-                GameMap.Node node = new Coordinates(i, j).getByCoordinates(actor.getMapInMemory());
-                if (node != null)
-                    node.setVisited(false);
-                best_values[i][j] = Short.MAX_VALUE;
+    private int jump(int cell, int dy, int dx, int from){
+        boolean krakenAlive = (from & 1) != 0;
+        int width = actor.getWidth(), y = cell / width, x = cell % width;
+        while (true) {
+            y += dy;
+            x += dx;
+            if(!isFree(y, x, krakenAlive))
+                return -1;
+            int next = y * width + x, nextState = enter(next, from);
+            if(next == targetCell || (nextState & 3) != (from & 3))
+                return nextState;
+            if(dy != 0 && dx != 0) {
+                if(isFree(y + dy, x - dx, krakenAlive) && !isFree(y, x - dx, krakenAlive) ||
+                        isFree(y - dy, x + dx, krakenAlive) && !isFree(y - dy, x, krakenAlive))
+                    return nextState;
+                if(jump(next, 0, dx, from) != -1 || jump(next, dy, 0, from) != -1)
+                    return nextState;
+            } else if(dx != 0) {
+                if(isFree(y + 1, x + dx, krakenAlive) && !isFree(y + 1, x, krakenAlive) ||
+                        isFree(y - 1, x + dx, krakenAlive) && !isFree(y - 1, x, krakenAlive))
+                    return nextState;
+            } else {
+                if(isFree(y + dy, x + 1, krakenAlive) && !isFree(y, x + 1, krakenAlive) ||
+                        isFree(y + dy, x - 1, krakenAlive) && !isFree(y, x - 1, krakenAlive))
+                    return nextState;
             }
         }
     }
 
 
     /**
-     * <h3>Method to visit given coordinates and perform all the checks</h3>
-     * This methods visits cells, performs checks for kraken and safety, and after checks executes backtracking
-     * with specific arguments.
-     * @param start {@code Coordinates} of start
-     * @param coordinates {@code Coordinates} to visit
-     * @param target {@code Coordinates} of target to reach
-     * @param currentValue {@code int} length of current path
-     * @param currentNode current {@code GameMap.Node} for execution
-     * @param haveRum haveRum {@code boolean} flag for this branch
-     * @param krakenAlive krakenAlive {@code boolean} flag for this branch
+     * <h3>Build directions to search from the jump point for each direction from the parent</h3>
+     * Natural directions continue the move from the parent, forced directions go around obstacles next to the cell.
+     * The first bit of the mask of forced neighbours is the obstacle on the left of the move and the second one is the
+     * obstacle on the right of it, in the order they are checked by {@code directions}.
+     * @return arrays of directions indexed by {@code (dy + 1) * 3 + dx + 1} and by the mask of forced neighbours
      */
-    void visitCoordinates(Coordinates start, Coordinates coordinates, Coordinates target, int currentValue,
-                          GameMap.Node currentNode, boolean haveRum, boolean krakenAlive){
-        if(inBoundaries(coordinates)) {
-            actor.setCoordinates(coordinates);
-            actor.explore();
-            GameMap.Node nextNode = getMatrixNode(coordinates);
-            if (nextNode.notVisited()) {
-                if(nextNode.howDanger() == 0) {
-                    nextNode.setParent(currentNode);
-                    if(nextNode.getId() == ObjectValues.TORTUGA.value)
-                        if(isKrakenSafe(nextNode.getCoordinates()))
-                            backtracking(start, nextNode, currentValue + 1, target,
-                                    true, false);
-                        else
-                            backtracking(start, nextNode, currentValue + 1, target,
-                                    true, krakenAlive);
-                    else
-                        backtracking(start, nextNode, currentValue + 1, target,
-                                haveRum, krakenAlive);
-                } else if ((!krakenAlive || isKrakenSafe(currentNode.getCoordinates()) && haveRum)
-                        && nextNode.howDanger() == 1 && isKrakenPerception(nextNode.getCoordinates())) {
-                    nextNode.setParent(currentNode);
-                    backtracking(start, nextNode, currentValue + 1, target, true, false);
+    private static int[][][][] prunedDirections(){
+        int[][][][] result = new int[9][4][][];
+        for (int dy = -1; dy <= 1; ++dy)
+            for (int dx = -1; dx <= 1; ++dx)
+                for (int forced = 0; forced < 4; ++forced) {
+                    List<int[]> directions = new ArrayList<>(5);
+                    directions.add(new int[]{dy, dx});
+                    if(dy != 0 && dx != 0) {
+                        directions.add(new int[]{dy, 0});
+                        directions.add(new int[]{0, dx});
+                        if((forced & 1) != 0)
+                            directions.add(new int[]{dy, -dx});
+                        if((forced & 2) != 0)
+                            directions.add(new int[]{-dy, dx});
+                    } else if(dx != 0) {
+                        if((forced & 1) != 0)
+                            directions.add(new int[]{1, dx});
+                        if((forced & 2) != 0)
+                            directions.add(new int[]{-1, dx});
+                    } else {
+                        if((forced & 1) != 0)
+                            directions.add(new int[]{dy, 1});
+                        if((forced & 2) != 0)
+                            directions.add(new int[]{dy, -1});
+                    }
+                    result[(dy + 1) * 3 + dx + 1][forced] = directions.toArray(new int[0][]);
                 }
-            }
-        }
+        return result;
     }
 
 
     /**
-     * <h3>Check whether path exists or not</h3>
-     * @param start start of algorithm {@code Coordinates}
-     * @param currentNode {@code GameMap.Node} on current step of execution
-     * @param currentValue current {@code int} length of path
-     * @param target {@code Coordinates} of target that we need to reach
-     * @param haveRum {@code boolean} flag to check whether this branch has rum or not
-     * @param krakenAlive {@code boolean} flag to check whether the Kraken killed in this branch or not
+     * <h3>Get directions to search from the jump point</h3>
+     * @param state index of the state in the jump point
+     * @param parent index of the parent state or -1
+     * @return array of directions as in {@code possibleMoves}
      */
-    public void pathExists(Coordinates start, GameMap.Node currentNode, int currentValue, Coordinates target, boolean haveRum, boolean krakenAlive){
-        actor.setCoordinates(currentNode.getCoordinates());
-        actor.explore();
-        if(currentValue + getHeuristic(currentNode.getCoordinates(), target) > this.minimum)
-            return;
-        if(actor.getCoordinates().equals(target) && minimum > currentValue) {
-            this.setBestPath(getPath(start, target));
-            anyPathFound = true;
-            return;
-        }
-        currentNode.setVisited(true);
-        for (int[] possibleMove : this.possibleMoves) {
-            Coordinates coordinates = currentNode.getCoordinates().getSum(possibleMove[0], possibleMove[1]);
-            if(inBoundaries(coordinates)) {
-                actor.setCoordinates(coordinates);
-                actor.explore();
-                GameMap.Node nextNode = getMatrixNode(coordinates);
-                //If node is not visited we can visit it
-                if (nextNode.notVisited()) {
-                    //If this node is fully safe we can just visit it
-                    if(nextNode.howDanger() == 0) {
-                        nextNode.setParent(currentNode);
-                        if(nextNode.getId() == ObjectValues.TORTUGA.value) {
-                            pathExists(start, nextNode, currentValue + 1, target,
-                                    true, krakenAlive);
-                        }
-                        else
-                            pathExists(start, nextNode, currentValue + 1, target,
-                                        haveRum, krakenAlive);
+    private int[][] directions(int state, int parent){
+        if(parent == -1 || (parent & 3) != (state & 3))
+            return possibleMoves;
+        boolean krakenAlive = (state & 1) != 0;
+        int width = actor.getWidth(), y = (state >> 2) / width, x = (state >> 2) % width;
+        int dy = Integer.signum(y - (parent >> 2) / width), dx = Integer.signum(x - (parent >> 2) % width);
+        int forced;
+        if(dy != 0 && dx != 0)
+            forced = (isFree(y, x - dx, krakenAlive) ? 0 : 1) | (isFree(y - dy, x, krakenAlive) ? 0 : 2);
+        else if(dx != 0)
+            forced = (isFree(y + 1, x, krakenAlive) ? 0 : 1) | (isFree(y - 1, x, krakenAlive) ? 0 : 2);
+        else
+            forced = (isFree(y, x + 1, krakenAlive) ? 0 : 1) | (isFree(y, x - 1, krakenAlive) ? 0 : 2);
+        return PRUNED_DIRECTIONS[(dy + 1) * 3 + dx + 1][forced];
+    }
 
-                    }
-                    //If this node is not safe but level of danger is one we can perform additional checks
-                    //to maybe visit this cell if it is cell of Kraken and Kraken is dead for now
-                    else if (nextNode.howDanger() == 1 &&
-                            (!krakenAlive || isKrakenSafe(currentNode.getCoordinates()) && haveRum)
-                             && isKrakenPerception(nextNode.getCoordinates())) {
-                        nextNode.setParent(currentNode);
-                        pathExists(start, nextNode, currentValue + 1, target, true, false);
-                    }
+
+    /**
+     * <h3>Jump point search main method</h3>
+     * @param start start {@code Coordinates} for the algorithm
+     * @param target {@code Coordinates} of target to reach
+     * @return {@code LinkedList} shortest path or list of zero length
+     */
+    public LinkedList<Coordinates> jumpPointSearch(Coordinates start, Coordinates target){
+        LinkedList<Coordinates> result = new LinkedList<>();
+        int startCell = actor.index(start), width = actor.getWidth();
+        targetCell = actor.index(target);
+        if(actor.howDanger(startCell) != 0)
+            return result;
+        int[] currentG = stateG, parents = stateParents;
+        Arrays.fill(currentG, Integer.MAX_VALUE);
+        Arrays.fill(closed, false);
+        actor.setCoordinates(start);
+        actor.explore();
+        boolean startRum = actor.getId(startCell) == ObjectValues.TORTUGA.value;
+        int startState = state(startCell, startRum, !(startRum && isKrakenSafe(start)));
+        currentG[startState] = 0;
+        parents[startState] = -1;
+        OpenSet openSet = clearOpenSet(state -> state >> 2, target);
+        openSet.relax(startState, getHeuristic(start, target));
+        while (!openSet.isEmpty()){
+            int cameFrom = openSet.extractMin();
+            if(closed[cameFrom])
+                continue;
+            closed[cameFrom] = true;
+            ++expandedNodes;
+            if(cameFrom >> 2 == targetCell && actor.howDanger(targetCell) == 0) {
+                this.anyPathFound = true;
+                this.isKrakenAlive = (cameFrom & 1) != 0;
+                for (int state = cameFrom; parents[state] != -1; state = parents[state]) {
+                    int from = parents[state] >> 2, to = state >> 2;
+                    int step = Integer.signum(to / width - from / width) * width +
+                            Integer.signum(to % width - from % width);
+                    for (int cell = to; cell != from; cell -= step)
+                        result.addFirst(actor.toCoordinates(cell));
+                }
+                result.addFirst(start);
+                return result;
+            }
+            for (int[] direction : directions(cameFrom, parents[cameFrom])) {
+                int next = jump(cameFrom >> 2, direction[0], direction[1], cameFrom);
+                if(next == -1 || closed[next])
+                    continue;
+                int distance = Math.max(Math.abs((next >> 2) / width - (cameFrom >> 2) / width),
+                        Math.abs((next >> 2) % width - (cameFrom >> 2) % width));
+                if(currentG[cameFrom] + distance < currentG[next]) {
+                    currentG[next] = currentG[cameFrom] + distance;
+                    parents[next] = cameFrom;
+                    openSet.relax(next, currentG[next] + getHeuristic(next >> 2, target));
                 }
             }
         }
+        return result;
     }
 
 
-    /**
-     * <h3>Recursive part of the backtracking algorithm</h3>
-     * @param start given {@code Coordinates} of path start point
-     * @param currentNode {@code GameMap.Node} value on current step of recursive algorithm execution
-     * @param currentValue length {@code int} value of length on current step of execution
-     * @param target {@code Coordinates} of the target to get the shortest path to
-     * @param haveRum {@code boolean} flag that says whether actor has the rum on this branch or not.
-     * @param krakenAlive {@code boolean} flag that say whether actor killed Kraken on this branch or not
-     */
-    public void backtracking(Coordinates start, GameMap.Node currentNode, int currentValue, Coordinates target, boolean haveRum, boolean krakenAlive){
-        actor.setCoordinates(currentNode.getCoordinates());
-        actor.explore();
-        if(currentValue + getHeuristic(currentNode.getCoordinates(), target) >= this.minimum || currentValue > 24)
-            return;
-        if(best_values[currentNode.getCoordinates().y][currentNode.getCoordinates().x] < currentValue)
-            return;
-        else
-            best_values[currentNode.getCoordinates().y][currentNode.getCoordinates().x] = (short) currentValue;
-
-
-        if(actor.getCoordinates().equals(target) && minimum > currentValue){
-            anyPathFound = true;
-            this.isKrakenAlive = krakenAlive;
-            minimum = currentValue;
-            this.setBestPath(getPath(start, target));
-            return;
-        }
-        currentNode.setVisited(true);
-        //Visit all cells around the current node with additional checks
-        for (int[] possibleMove : this.possibleMoves) {
-            Coordinates coordinates = currentNode.getCoordinates().getSum(possibleMove[0], possibleMove[1]);
-            visitCoordinates(start, coordinates, target, currentValue, currentNode, haveRum, krakenAlive);
-        }
-        currentNode.setVisited(false);
-    }
-
-
-    /**
-     * <h3>Driver code for the algorithm execution</h3>
-     * @param currentNode given {@code GameMap.Node}
-     * @param target      given {@code Coordinates} target to reach
-     * @return {@code LinkedLsit} shortest path or list of zero length
-     */
-    public LinkedList<Coordinates> execute(GameMap.Node currentNode, Coordinates target){
-        if(currentNode.howDanger() == 0) {
-            boolean tortugaOnStart = currentNode.getId() == ObjectValues.TORTUGA.value;
-            LinkedList<Coordinates> throughTortuga = null;
-            if (!tortugaOnStart){
-                pathExists(currentNode.getCoordinates(), currentNode, 0, actor.findTortuga(), false, true);
-                clearVisited();
-                //if path to tortuga found execute following
-                if (this.anyPathFound) {
-                    this.minimum = Integer.MAX_VALUE;
-                    backtracking(currentNode.getCoordinates(), currentNode, 0, actor.findTortuga(), false, true);
-                    LinkedList<Coordinates> wayToTortuga = null;
-                    if(this.getBestPath() != null)
-                        wayToTortuga = (LinkedList<Coordinates>) this.getBestPath().clone();
-                    int temp = this.minimum;
-                    clearVisited();
-                    this.minimum = Integer.MAX_VALUE;
-                    this.anyPathFound = false;
-                    pathExists(actor.findTortuga(), actor.findTortuga().getByCoordinates(actor.getMapInMemory()),
-                            temp, target, true, true);
-                    //if path from tortuga to target exists save the full path in a list
-                    if (this.anyPathFound) {
-                        clearVisited();
-                        this.minimum = Integer.MAX_VALUE;
-                        backtracking(actor.findTortuga(), actor.findTortuga().getByCoordinates(actor.getMapInMemory()),
-                                temp, target, true, true);
-                        for (int i = Objects.requireNonNull(wayToTortuga).size() - 2; i >= 0; --i)
-                            this.getBestPath().addFirst(wayToTortuga.get(i));
-                        throughTortuga = getBestPath();
-                        clearVisited();
-                        this.minimum = Integer.MAX_VALUE;
-                    }
-                }
-            }
-            this.setBestPath(null);
-            pathExists(currentNode.getCoordinates(), currentNode, 0, target, tortugaOnStart, true);
-            if(this.anyPathFound) {
-                clearVisited();
-                this.minimum = Integer.MAX_VALUE;
-                backtracking(currentNode.getCoordinates(), currentNode, 0, target, tortugaOnStart, true);
-            }
-            //compare the paths and return the best if any exists
-            if(throughTortuga != null) {
-                if(getBestPath() != null) {
-                    if (getBestPath().size() < throughTortuga.size())
-                        return getBestPath();
-                    else
-                        return throughTortuga;
-                } else
-                    return throughTortuga;
-            }
-            else
-                if(getBestPath() != null)
-                    return getBestPath();
-        }
-        return new LinkedList<>();
+    @Override
+    public LinkedList<Coordinates> execute(Coordinates start, Coordinates target){
+        return jumpPointSearch(start, target);
     }
 }
 
 
 /**
- * <h2>The main class that generates map or initializes it</h2>
- * This is the class that consists of all the methods for map generation initialization on clearing(to get initial
- * form). It is used to store all the data about map validate map, and used in some other classes to get data from.
+ * <h2>Bidirectional A* class</h2>
+ * Two A* searches over the states of {@code productAStar}: the forward one from the start and the backward one from
+ * the target, they are expanded in turns until the frontiers meet. The backward search goes over reversed moves, so
+ * for the state in the cell it finds all rum and Kraken flags that actor could have before entering the cell and
+ * getting this state. The target is the root of the backward search with all flags, because the state in which actor
+ * reaches it is not known in advance. Flags without rum and with dead Kraken are skipped, Kraken can be killed only
+ * with rum. Frontiers meet only in the same state, so the flags of both halves of the
+ * path are always consistent. The search stops when the minimal key of the extracted side is not less than the length
+ * of the best path through a met state, since both heuristics are consistent this path is the shortest one.
  */
-class GameMap{
+class BidirectionalAStar extends AStar{
+    private int startCell, targetCell;
+    //length of the best path through a state reached by both searches and this state
+    private int bestLength, meeting;
+    //flags with which actor can enter the cell of the state expanded by the backward search, reused by expansions
+    private final boolean[] previousFlags = new boolean[4];
 
-    private List<MapObject> map_objects = new ArrayList<>(6);
-    private JackSparrow jack_sparrow;
-    private DavyJones davy_jones;
-    private Kraken kraken;
-    private Rock rock;
-    private DeadMansChest deadMansChest;
-    private Tortuga tortuga;
 
-    private List<List<Node>> matrix;
+    //both sides of the search, reused by executions
+    private final Frontier forward, backward;
 
 
     /**
-     * <h3>Map node that contains different parameters that are used in algorithms</h3>
+     * <h2>One side of the search</h2>
+     * Values of the states for one search, parent of the state in the backward search is the next state to the target.
      */
-    public static class Node{
-        private char id;
-        private short danger;
-        private boolean visited = false;
-        private Node parent;
-        private final Coordinates coordinates;
-        private int currentG, currentF;
-        boolean krakenAlive = true, haveRum;
+    private class Frontier{
+        final int[] currentG, parents;
+        final boolean[] closed;
+        final OpenSet openSet;
+
+        Frontier(int size) {
+            currentG = new int[size];
+            parents = new int[size];
+            closed = new boolean[size];
+            openSet = createOpenSet(size);
+        }
 
-        public Node(short danger, Coordinates coordinates, char id, int currentG, int currentF) {
-            this.danger = danger;
-            this.coordinates = coordinates;
-            this.id = id;
-            this.currentG = currentG;
-            this.currentF = currentF;
+        void clear(Coordinates to){
+            Arrays.fill(currentG, Integer.MAX_VALUE);
+            Arrays.fill(closed, false);
+            openSet.clear(state -> getHeuristic(state >> 2, to));
         }
 
-        public void increaseDanger() {
-            this.danger++;
+        void push(int state, int value, int parent, int key){
+            currentG[state] = value;
+            parents[state] = parent;
+            openSet.relax(state, key);
         }
+    }
 
 
-        public void setCurrentG(int current_value) {
-            this.currentG = current_value;
-        }
+    BidirectionalAStar(Actor actor) {
+        this(actor, OpenSetValues.BINARY_HEAP);
+    }
 
-        public void setCurrentF(int currentF) {
-            this.currentF = currentF;
-        }
+    BidirectionalAStar(Actor actor, OpenSetValues openSetValue) {
+        super(actor, true, openSetValue);
+        int size = actor.getHeight() * actor.getWidth() << 2;
+        forward = new Frontier(size);
+        backward = new Frontier(size);
+    }
 
-        public void setId(char id){
-            this.id = id;
-        }
 
-        public int getCurrentG() {
-            return currentG;
+    /**
+     * <h3>Update the best path if the state is reached by both searches</h3>
+     * @param forward forward search
+     * @param backward backward search
+     * @param state index of the state
+     */
+    private void meet(Frontier forward, Frontier backward, int state){
+        if(forward.currentG[state] != Integer.MAX_VALUE && backward.currentG[state] != Integer.MAX_VALUE &&
+                forward.currentG[state] + backward.currentG[state] < bestLength) {
+            bestLength = forward.currentG[state] + backward.currentG[state];
+            meeting = state;
         }
+    }
 
-        public int getCurrentF() {
-            return currentF;
-        }
 
-        public char getId() {
-            return id;
+    /**
+     * <h3>Expand the state of the forward search</h3>
+     * @param forward forward search
+     * @param backward backward search
+     * @param cameFrom index of the state
+     * @param target {@code Coordinates} of the target
+     */
+    private void expandForward(Frontier forward, Frontier backward, int cameFrom, Coordinates target){
+        int width = actor.getWidth(), y = (cameFrom >> 2) / width, x = (cameFrom >> 2) % width;
+        for (int[] possibleMove : possibleMoves) {
+            if(!inBoundaries(y + possibleMove[0], x + possibleMove[1]))
+                continue;
+            int cameTo = (cameFrom >> 2) + possibleMove[0] * width + possibleMove[1];
+            if(!canEnter(cameTo, (cameFrom & 1) != 0))
+                continue;
+            int next = enter(cameTo, cameFrom), value = forward.currentG[cameFrom] + 1;
+            if(!forward.closed[next] && value < forward.currentG[next]) {
+                forward.push(next, value, cameFrom, value + getHeuristic(cameTo, target));
+                meet(forward, backward, next);
+            }
         }
+    }
 
-        public void setParent(Node parent) {
-            this.parent = parent;
-        }
 
-        public Node getParent() {
-            return parent;
+    /**
+     * <h3>Expand the state of the backward search</h3>
+     * Previous states are the states of neighbour cells with such flags, that actor can enter the cell of this state
+     * with them and get the flags of this state. The target is left with the same flags, as the search stops on it.
+     * @param forward forward search
+     * @param backward backward search
+     * @param cameTo index of the state
+     * @param start {@code Coordinates} of the start
+     */
+    private void expandBackward(Frontier forward, Frontier backward, int cameTo, Coordinates start){
+        int width = actor.getWidth(), cell = cameTo >> 2, y = cell / width, x = cell % width;
+        actor.explore(cell);
+        for (int flags = 1; flags < 4; ++flags)
+            previousFlags[flags] = cell == targetCell ? flags == (cameTo & 3) :
+                    canEnter(cell, (flags & 1) != 0) && (enter(cell, flags) & 3) == (cameTo & 3);
+        for (int[] possibleMove : possibleMoves) {
+            if(!inBoundaries(y + possibleMove[0], x + possibleMove[1]))
+                continue;
+            int cameFrom = cell + possibleMove[0] * width + possibleMove[1], value = backward.currentG[cameTo] + 1;
+            for (int flags = 0; flags < 4; ++flags) {
+                int previous = cameFrom << 2 | flags;
+                if(previousFlags[flags] && !backward.closed[previous] && value < backward.currentG[previous]) {
+                    backward.push(previous, value, cameTo, value + getHeuristic(cameFrom, start));
+                    meet(forward, backward, previous);
+                }
+            }
         }
+    }
 
-        public Coordinates getCoordinates() {
-            return coordinates;
-        }
 
-        public void setVisited(boolean visited) {
-            this.visited = visited;
+    /**
+     * <h3>Bidirectional A* main method</h3>
+     * @param start start {@code Coordinates} for the algorithm
+     * @param target {@code Coordinates} of target to reach
+     * @return {@code LinkedList} shortest path or list of zero length
+     */
+    public LinkedList<Coordinates> bidirectionalAStar(Coordinates start, Coordinates target){
+        LinkedList<Coordinates> result = new LinkedList<>();
+        startCell = actor.index(start);
+        targetCell = actor.index(target);
+        if(actor.howDanger(startCell) != 0 || actor.howDanger(targetCell) != 0)
+            return result;
+        forward.clear(target);
+        backward.clear(start);
+        bestLength = Integer.MAX_VALUE;
+        meeting = -1;
+        actor.setCoordinates(start);
+        actor.explore();
+        boolean startRum = actor.getId(startCell) == ObjectValues.TORTUGA.value;
+        forward.push(state(startCell, startRum, !(startRum && isKrakenSafe(start))), 0, -1,
+                getHeuristic(start, target));
+        for (int flags = 1; flags < 4; ++flags) {
+            backward.push(targetCell << 2 | flags, 0, -1, getHeuristic(target, start));
+            meet(forward, backward, targetCell << 2 | flags);
         }
-
-        public boolean notVisited(){
-            return !this.visited;
+        boolean forwardTurn = true;
+        while (!forward.openSet.isEmpty() && !backward.openSet.isEmpty()) {
+            Frontier frontier = forwardTurn ? forward : backward;
+            int key = frontier.openSet.minKey(), state = frontier.openSet.extractMin();
+            if(frontier.closed[state])
+                continue;
+            if(key >= bestLength)
+                break;
+            frontier.closed[state] = true;
+            ++expandedNodes;
+            if(forwardTurn)
+                expandForward(forward, backward, state, target);
+            else
+                expandBackward(forward, backward, state, start);
+            forwardTurn = !forwardTurn;
         }
-
-        public short howDanger(){
-            return this.danger;
+        if(meeting == -1)
+            return result;
+        for (int state = meeting; state != -1; state = forward.parents[state])
+            result.addFirst(actor.toCoordinates(state >> 2));
+        //Kraken flag is taken from the state before the target, or from the only state of the path
+        int last = meeting, beforeLast = forward.parents[meeting] == -1 ? meeting : forward.parents[meeting];
+        for (int state = backward.parents[meeting]; state != -1; state = backward.parents[state]) {
+            result.addLast(actor.toCoordinates(state >> 2));
+            beforeLast = last;
+            last = state;
         }
+        this.anyPathFound = true;
+        this.isKrakenAlive = (beforeLast & 1) != 0;
+        return result;
     }
 
-    public void clearMap(){
-        makeMatrix();
+
+    @Override
+    public LinkedList<Coordinates> execute(Coordinates start, Coordinates target){
+        return bidirectionalAStar(start, target);
     }
+}
 
-    public GameMap() {
 
+/**
+ * <h2>D* Lite class</h2>
+ * Incremental planner for the actor that moves step by step and sees the map only through his spyglass. Unknown cells
+ * are supposed to be safe sea, known cells are checked by the rules of {@code productAStar} over the states (cell,
+ * haveRum, krakenAlive). The search goes from the target to the actor and keeps its g and rhs values between moves,
+ * so after each move only the states next to the newly seen cells are updated and the shortest path is repaired
+ * instead of being searched again. The key of the state consists of two parts that are packed into one {@code long}.
+ * The path returned by {@code execute} is the path that actor has walked.
+ */
+class DStarLite extends AStar{
+    private int[] currentG, rhs;
+    private Node<Long, Integer>[] handles;
+    private PriorityQueue<Long, Integer> openSet;
+    private boolean[] known;
+    private int startState, targetCell, keyModifier;
+    //cells seen after the last move and marks of cells updated after it, the cell is marked if its mark is the epoch
+    private int[] seen, updated;
+    private int epoch;
+    //flags with which actor can enter the cell of the updated state, reused by updates
+    private final boolean[] previousFlags = new boolean[4];
+
+
+    DStarLite(Actor actor) {
+        super(actor, true);
     }
 
 
     /**
-     * <h3>Method to initialize map from given data</h3>
-     * @param jack_sparrow jack sparrow instance
-     * @param davy_jones davy jones instance
-     * @param kraken kraken instance
-     * @param rock rock instance
-     * @param deadMansChest dead mans chest instance
-     * @param tortuga tortuga instance
-     * @return {@code boolean} flag of success of the map initialization
+     * <h3>Check if the cell can be entered by the knowledge of actor</h3>
+     * @param cell index of the cell
+     * @param krakenAlive whether Kraken is alive
+     * @return {@code boolean} result flag, unknown cells can be entered
      */
-    public boolean initialize(JackSparrow jack_sparrow, DavyJones davy_jones, Kraken kraken, Rock rock, DeadMansChest deadMansChest, Tortuga tortuga){
-        for (MapObject map_object: Arrays.asList(jack_sparrow, davy_jones, kraken, rock, deadMansChest, tortuga))
-            if(!checkedInsert(map_object)){
-                this.map_objects = new ArrayList<>(6);
-                return false;
-            }
-        makeMatrix();
-        return true;
+    private boolean isFree(int cell, boolean krakenAlive){
+        return !known[cell] || canEnter(cell, krakenAlive);
     }
 
 
     /**
-     * <h3>Method of trying of insertion to the matrix starting from given coordinates</h3>
-     * @param map_object map object to insert
-     * @param x_begin start X-axis coordinates
-     * @param y_begin start Y-axis coordinates
-     * @return {@code boolean} flag of check whether the insertion possible
+     * <h3>Get the state after entering the cell by the knowledge of actor</h3>
+     * Unlike {@code enter} it does not explore the cell.
+     * @param cell index of the cell
+     * @param from state before entering the cell, only its rum and Kraken flags are used
+     * @return {@code int} index of the state in the cell
      */
-    public boolean tryAnyInsertionStarting(MapObject map_object, int x_begin, int y_begin){
-        for(; y_begin < 9; ++y_begin){
-            for (; x_begin < 9; ++x_begin){
-                map_object.getCoordinates().setCoordinates(y_begin, x_begin);
-                if(checkedInsert(map_object)) return true;
-            }
-        }
-        for (y_begin = 0; y_begin < 9; ++y_begin){
-            for (x_begin = 0; x_begin < 9; ++x_begin){
-                map_object.getCoordinates().setCoordinates(y_begin, x_begin);
-                if(checkedInsert(map_object)) return true;
-            }
-        }
-        return false;
+    private int next(int cell, int from){
+        boolean haveRum = (from & 2) != 0 || known[cell] && actor.getId(cell) == ObjectValues.TORTUGA.value;
+        return state(cell, haveRum, (from & 1) != 0 && !(haveRum && isKrakenSafe(cell)));
     }
 
 
     /**
-     * <h3>Random map generation method</h3>
-     * @param generator Random generator
+     * <h3>Calculate the key of the state</h3>
+     * @param state index of the state
+     * @return {@code long} key, the first part is in the high bits and the second one in the low bits
      */
-    public void generate(Random generator){
-        if(!checkedInsert(new JackSparrow(0, 0, this)))
-            return;
-        List<MapObject> new_map_objects =  Arrays.asList(new DavyJones(this), new Kraken(this),
-                new Rock(this), new DeadMansChest(this), new Tortuga(this));
-        for(MapObject map_object: new_map_objects){
-            int temp = generator.nextInt(0, 81);
-            int i = temp / 9, j = temp % 9;
-            map_object.setCoordinates(new Coordinates(j, i));
-            if(!tryAnyInsertionStarting(map_object, j, i))
-                return;
-        }
-        makeMatrix();
+    private long calculateKey(int state){
+        int value = Math.min(currentG[state], rhs[state]);
+        if(value == Integer.MAX_VALUE)
+            return Long.MAX_VALUE;
+        return (long) (value + distance(startState >> 2, state >> 2) + keyModifier) << 32 | value;
     }
 
 
     /**
-     * Method to remove kraken from the map
+     * <h3>Recalculate rhs of the state and put it to the open set if it is inconsistent</h3>
+     * @param state index of the state
      */
-    public void killKraken(){
-        int[][] krakenZone = new int[][]{{1, 0}, {0, 1}, {0, -1}, {-1, 0}};
-        Coordinates krakenCoordinates = this.getKraken().getCoordinates();
-        int y, x;
-        for (int[] ints : krakenZone) {
-            y = krakenCoordinates.y + ints[0];
-            x = krakenCoordinates.x + ints[1];
-            if(Algorithm.inBoundaries(new Coordinates(y, x)))
-                if (this.matrix.get(y)
-                        .get(x).howDanger() == 1)
-                    this.matrix.get(y)
-                            .get(x).setId(ObjectValues.SEA.value);
-        }
-        if(this.matrix.get(krakenCoordinates.y).get(krakenCoordinates.x).howDanger() == 1)
-            krakenCoordinates.getByCoordinates(this.matrix).setId(ObjectValues.SEA.value);
-        else
-            if(krakenCoordinates.getByCoordinates(this.matrix).getId() == ObjectValues.KRAKEN_AND_ROCK.value)
-                krakenCoordinates.getByCoordinates(this.matrix).setId(ObjectValues.ROCK.value);
-            else
-                krakenCoordinates.getByCoordinates(this.matrix).setId(ObjectValues.SEA.value);
+    private void updateVertex(int state){
+        if(state >> 2 != targetCell) {
+            rhs[state] = Integer.MAX_VALUE;
+            int width = actor.getWidth(), cell = state >> 2, y = cell / width, x = cell % width;
+            for (int[] possibleMove : possibleMoves) {
+                if(!inBoundaries(y + possibleMove[0], x + possibleMove[1]))
+                    continue;
+                int nextCell = cell + possibleMove[0] * width + possibleMove[1];
+                if(!isFree(nextCell, (state & 1) != 0))
+                    continue;
+                int nextState = next(nextCell, state);
+                if(currentG[nextState] != Integer.MAX_VALUE)
+                    rhs[state] = Math.min(rhs[state], currentG[nextState] + 1);
+            }
+        }
+        if(handles[state] != null) {
+            openSet.delete(handles[state]);
+            handles[state] = null;
+        }
+        if(currentG[state] != rhs[state]) {
+            handles[state] = new Node<>(calculateKey(state), state);
+            openSet.insert(handles[state]);
+        }
     }
 
 
     /**
-     * Method to form matrix for future algorithms execution
+     * <h3>Update all previous states of the state</h3>
+     * Previous states are the states of neighbour cells with such flags, that actor can enter the cell of this state
+     * with them and get the flags of this state.
+     * @param state index of the state
      */
-    public void makeMatrix(){
-        matrix = new ArrayList<>(81);
-        for(int i = 0; i < 9; ++i) {
-            matrix.add(new ArrayList<>());
-            for(int j = 0; j < 9; ++j)
-                matrix.get(i).add(null);
-        }
-        for(MapObject map_object: this.map_objects) {
-            Node currentNode = map_object.getCoordinates().getByCoordinates(matrix);
-            if(currentNode != null) {
-                currentNode.increaseDanger();
-                if(currentNode.getId() == ObjectValues.KRAKEN.value && map_object.get_id() == ObjectValues.ROCK.value ||
-                   currentNode.getId() == ObjectValues.ROCK.value && map_object.get_id() == ObjectValues.KRAKEN.value)
-                    currentNode.setId(ObjectValues.KRAKEN_AND_ROCK.value);
-                else if(currentNode.getId() == ObjectValues.JACK_SPARROW.value && map_object.get_id() == ObjectValues.TORTUGA.value ||
-                        currentNode.getId() == ObjectValues.TORTUGA.value && map_object.get_id() == ObjectValues.JACK_SPARROW.value)
-                    currentNode.setId(ObjectValues.TORTUGA_AND_JACK.value);
-                else
-                    currentNode.setId(map_object.get_id());
-            } else {
-                matrix.get(map_object.getCoordinates().y).set(map_object.getCoordinates().x, new Node((short)
-                        (map_object.enemy ? 1 : 0), map_object.getCoordinates(),
-                        map_object.get_id(), Integer.MAX_VALUE, Integer.MAX_VALUE));
-            }
-            for(Coordinates perception: map_object.get_perception_zone())
-                if(matrix.get(perception.y).get(perception.x) == null)
-                    matrix.get(perception.y).set(perception.x, new Node((short) 1, perception,
-                            ObjectValues.PERCEPTION_ZONE.value, Integer.MAX_VALUE, Integer.MAX_VALUE));
-                else
-                    matrix.get(perception.y).get(perception.x).increaseDanger();
-        }
-        for(int i = 0; i < 9; ++i) {
-            for(int j = 0; j < 9; ++j)
-                if(this.matrix.get(i).get(j) == null)
-                    matrix.get(i).set(j, new Node((short) 0, new Coordinates(i, j),
-                            ObjectValues.SEA.value, Integer.MAX_VALUE, Integer.MAX_VALUE));
+    private void updatePrevious(int state){
+        int width = actor.getWidth(), cell = state >> 2, y = cell / width, x = cell % width;
+        for (int flags = 1; flags < 4; ++flags)
+            previousFlags[flags] = isFree(cell, (flags & 1) != 0) && (next(cell, flags) & 3) == (state & 3);
+        for (int[] possibleMove : possibleMoves) {
+            if(!inBoundaries(y + possibleMove[0], x + possibleMove[1]))
+                continue;
+            int previousCell = cell + possibleMove[0] * width + possibleMove[1];
+            for (int flags = 1; flags < 4; ++flags)
+                if(previousFlags[flags])
+                    updateVertex(previousCell << 2 | flags);
         }
     }
 
-    public List<List<Node>> getMatrix() {
-        return matrix;
+
+    /**
+     * <h3>Get heuristic distance between two cells</h3>
+     * @param from index of the first cell
+     * @param to index of the second cell
+     * @return {@code int} distance
+     */
+    private int distance(int from, int to){
+        int width = actor.getWidth();
+        return Math.max(Math.abs(from / width - to / width), Math.abs(from % width - to % width));
     }
 
+
     /**
-     * <h3>Map printer</h3>
-     * @param printStream Printer instance
-     * @param path Found path
+     * <h3>Create array of open set nodes for each state</h3>
+     * @param size number of states
+     * @return array of nodes
      */
-    public void printMap(PrintStream printStream, List<Coordinates> path) {
-        for(Coordinates coordinates: path)
-            matrix.get(coordinates.y).get(coordinates.x).setId(ObjectValues.PATH.value);
-        printStream.print("  ");
-        for (int i = 0; i < 9; ++i)
-            printStream.printf("%d ", i);
-        printStream.println();
-        for(int i = 0; i < 9; ++i){
-            printStream.printf("%d ", i);
-            for(int j = 0; j < 9; ++j){
-                printStream.printf("%c ", matrix.get(i).get(j).getId());
-            }
-            printStream.println();
-        }
+    @SuppressWarnings("unchecked")
+    private static Node<Long, Integer>[] createStateHandles(int size){
+        return (Node<Long, Integer>[]) new Node<?, ?>[size];
     }
 
-    public boolean checkedInsert(MapObject new_map_object){
-        if (new_map_object.validate()){
-            insert(new_map_object);
-            return true;
+
+    /**
+     * <h3>Initialize the planner</h3>
+     * @param start {@code Coordinates} of the actor
+     * @param target {@code Coordinates} of the target
+     */
+    public void initialize(Coordinates start, Coordinates target){
+        int size = actor.getHeight() * actor.getWidth() << 2;
+        currentG = new int[size];
+        rhs = new int[size];
+        Arrays.fill(currentG, Integer.MAX_VALUE);
+        Arrays.fill(rhs, Integer.MAX_VALUE);
+        handles = createStateHandles(size);
+        seen = new int[size >> 2];
+        updated = new int[size >> 2];
+        epoch = 0;
+        openSet = new PriorityQueue<>(Comparator.comparing(Node::getKey));
+        known = Arrays.copyOf(actor.getMapInMemory(), size >> 2);
+        targetCell = actor.index(target);
+        keyModifier = 0;
+        boolean startRum = actor.getId(actor.index(start)) == ObjectValues.TORTUGA.value;
+        startState = state(actor.index(start), startRum, !(startRum && isKrakenSafe(start)));
+        for (int flags = 1; flags < 4; ++flags) {
+            rhs[targetCell << 2 | flags] = 0;
+            updateVertex(targetCell << 2 | flags);
         }
-        return false;
     }
 
 
     /**
-     * <h3>Map insertion method</h3>
-     * @param new_map_object New object to insert
+     * <h3>Compute the shortest path from the actor to the target</h3>
+     * Only inconsistent states with keys less than the key of actor state are processed.
      */
-    private void insert(MapObject new_map_object){
-        this.map_objects.add(new_map_object);
-        if (new_map_object.get_id() == ObjectValues.JACK_SPARROW.value) {
-            this.jack_sparrow = (JackSparrow) new_map_object;
-        }  else if(new_map_object.get_id() == ObjectValues.DAVY_JONES.value){
-            this.davy_jones = (DavyJones) new_map_object;
-        } else if (new_map_object.get_id() == ObjectValues.KRAKEN.value) {
-            this.kraken = (Kraken) new_map_object;
-        } else if (new_map_object.get_id() == ObjectValues.ROCK.value) {
-            this.rock = (Rock) new_map_object;
-        } else if (new_map_object.get_id() == ObjectValues.DEAD_MANS_CHEST.value){
-            this.deadMansChest = (DeadMansChest) new_map_object;
-        } else if (new_map_object.get_id() == ObjectValues.TORTUGA.value) {
-            this.tortuga = (Tortuga) new_map_object;
+    public void computeShortestPath(){
+        while (!openSet.isEmpty() && (openSet.findMin().getKey() < calculateKey(startState) ||
+                rhs[startState] != currentG[startState])) {
+            Node<Long, Integer> node = openSet.extractMin();
+            int state = node.getValue();
+            handles[state] = null;
+            ++expandedNodes;
+            long newKey = calculateKey(state);
+            if(node.getKey() < newKey) {
+                handles[state] = new Node<>(newKey, state);
+                openSet.insert(handles[state]);
+            } else if(currentG[state] > rhs[state]) {
+                currentG[state] = rhs[state];
+                updatePrevious(state);
+            } else {
+                currentG[state] = Integer.MAX_VALUE;
+                updateVertex(state);
+                updatePrevious(state);
+            }
         }
     }
 
-    public JackSparrow getJackSparrow() {
-        return jack_sparrow;
-    }
 
-    public DavyJones getDavyJones() {
-        return davy_jones;
+    /**
+     * <h3>Get the best next state of the actor</h3>
+     * @return {@code int} index of the state or -1 if the target can not be reached
+     */
+    public int nextState(){
+        int width = actor.getWidth(), cell = startState >> 2, y = cell / width, x = cell % width;
+        int best = -1;
+        for (int[] possibleMove : possibleMoves) {
+            if(!inBoundaries(y + possibleMove[0], x + possibleMove[1]))
+                continue;
+            int nextCell = cell + possibleMove[0] * width + possibleMove[1];
+            if(!isFree(nextCell, (startState & 1) != 0))
+                continue;
+            int nextState = next(nextCell, startState);
+            if(currentG[nextState] != Integer.MAX_VALUE && (best == -1 || currentG[nextState] < currentG[best]))
+                best = nextState;
+        }
+        return best;
     }
 
-    public Kraken getKraken() {
-        return kraken;
-    }
 
-    public Rock getRock() {
-        return rock;
+    /**
+     * <h3>Move the actor to the cell and repair the plan</h3>
+     * Actor explores the cell, states of cells near the newly seen ones are updated, because the rules of entering
+     * a cell depend on the cell and its neighbours. Newly seen cells are looked for within the radius of the spyglass
+     * of actor.
+     * @param cell index of the cell
+     */
+    public void moveTo(int cell){
+        int last = startState, width = actor.getWidth(), radius = actor.getSpyGlass().getRadius(), seenCells = 0;
+        actor.setCoordinates(actor.toCoordinates(cell));
+        actor.explore();
+        keyModifier += distance(last >> 2, cell);
+        int y = cell / width, x = cell % width;
+        for (int dy = -radius; dy <= radius; ++dy)
+            for (int dx = -radius; dx <= radius; ++dx)
+                if(inBoundaries(y + dy, x + dx) && !known[cell + dy * width + dx] &&
+                        actor.isKnown(cell + dy * width + dx)) {
+                    known[cell + dy * width + dx] = true;
+                    seen[seenCells++] = cell + dy * width + dx;
+                }
+        startState = next(cell, last);
+        //rules of entering a cell depend on its neighbours, so edges to cells next to the seen ones are changed
+        ++epoch;
+        for (int i = 0; i < seenCells; ++i)
+            for (int dy = -2; dy <= 2; ++dy)
+                for (int dx = -2; dx <= 2; ++dx) {
+                    int seenCell = seen[i], affected = seenCell + dy * width + dx;
+                    if(!inBoundaries(seenCell / width + dy, seenCell % width + dx) || updated[affected] == epoch)
+                        continue;
+                    updated[affected] = epoch;
+                    for (int flags = 1; flags < 4; ++flags)
+                        updateVertex(affected << 2 | flags);
+                }
+        computeShortestPath();
     }
 
-    public Tortuga getTortuga() {
-        return tortuga;
-    }
 
-    public DeadMansChest getDeadMansChest() {
-        return deadMansChest;
+    /**
+     * <h3>D* Lite execution algorithm</h3>
+     * Actor moves by the plan and replans after each move until he reaches the target or there is no path.
+     * @param start given {@code Coordinates} of start
+     * @param target given {@code Coordinates} target to reach
+     * @return {@code LinkedList} walked path or list of zero length
+     */
+    @Override
+    public LinkedList<Coordinates> execute(Coordinates start, Coordinates target){
+        LinkedList<Coordinates> result = new LinkedList<>();
+        if(actor.howDanger(actor.index(start)) != 0)
+            return result;
+        actor.setCoordinates(start);
+        actor.explore();
+        initialize(start, target);
+        computeShortestPath();
+        result.add(start);
+        while (startState >> 2 != targetCell) {
+            int next = nextState();
+            if(next == -1)
+                return new LinkedList<>();
+            this.isKrakenAlive = (startState & 1) != 0;
+            moveTo(next >> 2);
+            result.add(actor.toCoordinates(next >> 2));
+        }
+        this.anyPathFound = true;
+        return result;
     }
-
 }
 
 
 /**
- * <h2>Map object class that contains all the common values and methods for map objects</h2>
- */
-class MapObject {
-    public boolean enemy = false;
-    private final GameMap map;
-    private Coordinates coordinates;
+ * <h2>Backtracking class</h2></h2>
+ * The class for Backtracking algorithm, which is based on DFS algorithm. It has derived constructor and can be executed
+ * by overridden method {@code execute}. Has specific methods that are used only for this algorithm:
+ * <br/>
+ * 1) <strong>Backtracking</strong>({@code backtracking}), which is recursive method that delivers main functionality.
+ * <br/>
+ * 2) <strong>Clear visited cells</strong>({@code clearVisited}), which sets all the visited flags to false. It is
+ * meaningful because recursive {@code backtracking} is called several time, so it shouldn't know anything about
+ * previous execution.
+ * <br/>
+ * 3) <strong>Visit cell</strong>({@code visitCell}), which is used for visiting the cell and
+ * checking all of the conditions.
+ *<br/>
+ * 4) <strong>Check existence of path to the given target</strong>({@code pathExists}), which check whether we can find
+ * path to the target from the start point or not by the flood fill over bit boards.
+ */
+class Backtracking extends Algorithm{
+
+    //the shortest length of path to each state (cell, haveRum, krakenAlive) that was found
+    short[] best_values;
+    //maximal length of path that is still considered by the search, equals to 24 for 9x9 map
+    final int maxDepth;
+    //kind of the table, the table of cells uses only the value of the first state of each cell
+    private final MemoValues memoValue;
+    //bit board view of the map for the check of existence of path
+    private BitBoardMap view;
+    //cells of the best path found by the current search from the last cell to the first one
+    private int[] bestCells = new int[0];
+    private int bestCellsLength;
+
+
+    /**
+     * <h3>Constructor for a backtracking algorithm instance</h3>
+     * @param actor given {@code Actor} for an algorithm execution
+     */
+    public Backtracking(Actor actor) {
+        this(actor, MemoValues.DOMINANCE);
+    }
+
+
+    /**
+     * <h3>Constructor for a backtracking algorithm instance with the chosen table of best values</h3>
+     * @param actor given {@code Actor} for an algorithm execution
+     * @param memoValue kind of the table of best values
+     */
+    public Backtracking(Actor actor, MemoValues memoValue) {
+        super(actor);
+        this.memoValue = memoValue;
+        best_values = new short[actor.getHeight() * actor.getWidth() << 2];
+        maxDepth = 3 * (Math.max(actor.getHeight(), actor.getWidth()) - 1);
+        Arrays.fill(best_values, Short.MAX_VALUE);
+    }
+
+
+    /**
+     * <h3>Check the visit by the table of best values and remember it</h3>
+     * With the table of dominance the visit is cut off if the same or a better state has already reached the cell by
+     * fewer steps. The state is better if it has rum whenever this one has and Kraken is dead whenever it is dead in
+     * this one, so everything that can be done from this state can be done from the better one. The table of states
+     * compares only the same state, and the table of cells compares any visits of the cell, so it can cut off the
+     * better state reached after the worse one.
+     * @param cell index of the cell
+     * @param currentValue length of path to the cell
+     * @param haveRum whether actor has the rum on this branch
+     * @param krakenAlive whether Kraken is alive on this branch
+     * @return {@code boolean} true if the visit is cut off
+     */
+    boolean isDominated(int cell, int currentValue, boolean haveRum, boolean krakenAlive){
+        int state = memoValue == MemoValues.CELL ? cell << 2 : state(cell, haveRum, krakenAlive);
+        if(memoValue == MemoValues.DOMINANCE) {
+            for (int flags = 0; flags < 4; ++flags)
+                if(((flags & 2) != 0 || !haveRum) && ((flags & 1) == 0 || krakenAlive) &&
+                        best_values[cell << 2 | flags] < currentValue)
+                    return true;
+        } else if(best_values[state] < currentValue)
+            return true;
+        best_values[state] = (short) currentValue;
+        return false;
+    }
+
+
+    /**
+     * <h3>Remember cells of the path to the target as the best one</h3>
+     * The cells are copied from the parents of cells to the array that is reused by all found paths, the list of
+     * {@code Coordinates} is made once by {@code restorePath} after the search.
+     * @param start {@code Coordinates} of path start point
+     * @param target {@code Coordinates} of the target
+     */
+    void rememberPath(Coordinates start, Coordinates target){
+        int cell = actor.index(target), startCell = actor.index(start);
+        bestCellsLength = 0;
+        while (cell != -1) {
+            if(bestCellsLength == bestCells.length)
+                bestCells = Arrays.copyOf(bestCells, Math.max(maxDepth + 2, 2 * bestCellsLength));
+            bestCells[bestCellsLength++] = cell;
+            cell = cell == startCell ? -1 : actor.parents[cell];
+        }
+    }
+
+
+    /**
+     * <h3>Set the best path from the remembered cells if the search has found any</h3>
+     */
+    void restorePath(){
+        if(bestCellsLength == 0)
+            return;
+        LinkedList<Coordinates> result = new LinkedList<>();
+        for (int i = bestCellsLength - 1; i >= 0; --i)
+            result.add(actor.toCoordinates(bestCells[i]));
+        this.setBestPath(result);
+        bestCellsLength = 0;
+    }
+
+
+    /**
+     * <h3>Clear all visited cells for future executions</h3>
+     */
+    private void clearVisited(){
+        for (int cell = 0; cell < actor.getHeight() * actor.getWidth(); ++cell) {
+            if (actor.isKnown(cell))
+                actor.visited[cell] = false;
+            Arrays.fill(best_values, cell << 2, cell + 1 << 2, Short.MAX_VALUE);
+        }
+    }
+
+
+    /**
+     * <h3>Method to visit given cell and perform all the checks</h3>
+     * This methods visits cells, performs checks for kraken and safety, and after checks executes backtracking
+     * with specific arguments.
+     * @param start {@code Coordinates} of start
+     * @param nextCell index of the cell to visit
+     * @param target {@code Coordinates} of target to reach
+     * @param currentValue {@code int} length of current path
+     * @param currentCell index of current cell for execution
+     * @param haveRum haveRum {@code boolean} flag for this branch
+     * @param krakenAlive krakenAlive {@code boolean} flag for this branch
+     */
+    private void visitCell(Coordinates start, int nextCell, Coordinates target, int currentValue, int currentCell,
+                           boolean haveRum, boolean krakenAlive){
+        actor.explore(nextCell);
+        if (!actor.visited[nextCell]) {
+            if(actor.howDanger(nextCell) == 0) {
+                actor.parents[nextCell] = currentCell;
+                if(actor.getId(nextCell) == ObjectValues.TORTUGA.value)
+                    backtracking(start, nextCell, currentValue + 1, target,
+                            true, krakenAlive && !isKrakenSafe(nextCell));
+                else
+                    backtracking(start, nextCell, currentValue + 1, target,
+                            haveRum, krakenAlive);
+            } else if ((!krakenAlive || isKrakenSafe(currentCell) && haveRum)
+                    && actor.howDanger(nextCell) == 1 && isKrakenPerception(nextCell)) {
+                actor.parents[nextCell] = currentCell;
+                backtracking(start, nextCell, currentValue + 1, target, true, false);
+            }
+        }
+    }
+
+
+    /**
+     * <h3>Check whether path exists or not</h3>
+     * The check is the flood fill over bit boards of the map, so it does not depend on what actor has seen and does not
+     * change visited cells. The view of the map is built once on the first check.
+     * @param start start of algorithm {@code Coordinates}
+     * @param current {@code Coordinates} of the cell where the path starts
+     * @param currentValue current {@code int} length of path
+     * @param target {@code Coordinates} of target that we need to reach
+     * @param haveRum {@code boolean} flag to check whether this branch has rum or not
+     * @param krakenAlive {@code boolean} flag to check whether the Kraken killed in this branch or not
+     */
+    public void pathExists(Coordinates start, Coordinates current, int currentValue, Coordinates target, boolean haveRum, boolean krakenAlive){
+        if(view == null)
+            view = new BitBoardMap(actor.getEnvironment());
+        if(view.reachable(actor.index(current), state(0, haveRum, krakenAlive)).get(actor.index(target)))
+            anyPathFound = true;
+    }
+
+
+    /**
+     * <h3>Entry point of the backtracking algorithm</h3>
+     * @param start given {@code Coordinates} of path start point
+     * @param current {@code Coordinates} of cell where the search starts
+     * @param currentValue length {@code int} value of length at the first cell
+     * @param target {@code Coordinates} of the target to get the shortest path to
+     * @param haveRum {@code boolean} flag that says whether actor has the rum on this branch or not.
+     * @param krakenAlive {@code boolean} flag that say whether actor killed Kraken on this branch or not
+     */
+    public void backtracking(Coordinates start, Coordinates current, int currentValue, Coordinates target, boolean haveRum, boolean krakenAlive){
+        actor.setCoordinates(current);
+        backtracking(start, actor.index(current), currentValue, target, haveRum, krakenAlive);
+        restorePath();
+    }
+
+
+    /**
+     * <h3>Recursive part of the backtracking algorithm</h3>
+     * Cells are passed by their indices, so no objects are created for visited cells.
+     * @param start given {@code Coordinates} of path start point
+     * @param currentCell index of cell on current step of recursive algorithm execution
+     * @param currentValue length {@code int} value of length on current step of execution
+     * @param target {@code Coordinates} of the target to get the shortest path to
+     * @param haveRum {@code boolean} flag that says whether actor has the rum on this branch or not.
+     * @param krakenAlive {@code boolean} flag that say whether actor killed Kraken on this branch or not
+     */
+    private void backtracking(Coordinates start, int currentCell, int currentValue, Coordinates target, boolean haveRum,
+                              boolean krakenAlive){
+        actor.explore(currentCell);
+        if(currentValue + getHeuristic(currentCell, target) >= this.minimum || currentValue > maxDepth)
+            return;
+        if(isDominated(currentCell, currentValue, haveRum, krakenAlive))
+            return;
+
+
+        if(currentCell == actor.index(target) && minimum > currentValue){
+            anyPathFound = true;
+            this.isKrakenAlive = krakenAlive;
+            minimum = currentValue;
+            rememberPath(start, target);
+            return;
+        }
+        actor.visited[currentCell] = true;
+        ++expandedNodes;
+        int width = actor.getWidth(), y = currentCell / width, x = currentCell % width;
+        //Visit all cells around the current node with additional checks
+        for (int[] possibleMove : this.possibleMoves)
+            if(inBoundaries(y + possibleMove[0], x + possibleMove[1]))
+                visitCell(start, currentCell + possibleMove[0] * width + possibleMove[1], target, currentValue,
+                        currentCell, haveRum, krakenAlive);
+        actor.visited[currentCell] = false;
+    }
+
+
+    /**
+     * <h3>Driver code for the algorithm execution</h3>
+     * @param start  given {@code Coordinates} of start
+     * @param target given {@code Coordinates} target to reach
+     * @return {@code LinkedLsit} shortest path or list of zero length
+     */
+    public LinkedList<Coordinates> execute(Coordinates start, Coordinates target){
+        int startCell = actor.index(start);
+        if(actor.howDanger(startCell) == 0) {
+            boolean tortugaOnStart = actor.getId(startCell) == ObjectValues.TORTUGA.value;
+            LinkedList<Coordinates> throughTortuga = null;
+            if (!tortugaOnStart){
+                pathExists(start, start, 0, actor.findTortuga(), false, true);
+                clearVisited();
+                //if path to tortuga found execute following
+                if (this.anyPathFound) {
+                    this.minimum = Integer.MAX_VALUE;
+                    backtracking(start, start, 0, actor.findTortuga(), false, true);
+                    LinkedList<Coordinates> wayToTortuga = null;
+                    if(this.getBestPath() != null)
+                        wayToTortuga = (LinkedList<Coordinates>) this.getBestPath().clone();
+                    int temp = this.minimum;
+                    clearVisited();
+                    this.minimum = Integer.MAX_VALUE;
+                    this.anyPathFound = false;
+                    pathExists(actor.findTortuga(), actor.findTortuga(), temp, target, true, true);
+                    //if path from tortuga to target exists save the full path in a list
+                    if (this.anyPathFound) {
+                        clearVisited();
+                        this.minimum = Integer.MAX_VALUE;
+                        backtracking(actor.findTortuga(), actor.findTortuga(), temp, target, true, true);
+                        for (int i = Objects.requireNonNull(wayToTortuga).size() - 2; i >= 0; --i)
+                            this.getBestPath().addFirst(wayToTortuga.get(i));
+                        throughTortuga = getBestPath();
+                        clearVisited();
+                        this.minimum = Integer.MAX_VALUE;
+                    }
+                }
+            }
+            this.setBestPath(null);
+            pathExists(start, start, 0, target, tortugaOnStart, true);
+            if(this.anyPathFound) {
+                clearVisited();
+                this.minimum = Integer.MAX_VALUE;
+                backtracking(start, start, 0, target, tortugaOnStart, true);
+            }
+            //compare the paths and return the best if any exists
+            if(throughTortuga != null) {
+                if(getBestPath() != null) {
+                    if (getBestPath().size() < throughTortuga.size())
+                        return getBestPath();
+                    else
+                        return throughTortuga;
+                } else
+                    return throughTortuga;
+            }
+            else
+                if(getBestPath() != null)
+                    return getBestPath();
+        }
+        return new LinkedList<>();
+    }
+}
+
+
+/**
+ * <h2>Iterative backtracking class</h2>
+ * The same algorithm as {@code Backtracking} with the same order of visiting cells and the same pruning rules, but
+ * recursive method {@code backtracking} is replaced with the loop over explicit stack. Frames
+ * of the stack are stored in preallocated arrays and each frame remembers index of the next move to try, so the depth
+ * of search is not limited by the size of thread stack and no objects are allocated for visited cells.
+ */
+class IterativeBacktracking extends Backtracking{
+    //frames of the stack: cell, length of path to it, flags of rum and Kraken and index of the next move
+    int[] frameCells, frameValues, frameMoves;
+    boolean[] frameRum, frameAlive;
+    int depth;
+
+
+    /**
+     * <h3>Constructor for an iterative backtracking algorithm instance</h3>
+     * @param actor given {@code Actor} for an algorithm execution
+     */
+    public IterativeBacktracking(Actor actor) {
+        super(actor);
+        allocateFrames(maxDepth + 2);
+    }
+
+
+    /**
+     * <h3>Allocate arrays for frames keeping current frames</h3>
+     * @param capacity new number of frames
+     */
+    private void allocateFrames(int capacity){
+        frameCells = frameCells == null ? new int[capacity] : Arrays.copyOf(frameCells, capacity);
+        frameValues = frameValues == null ? new int[capacity] : Arrays.copyOf(frameValues, capacity);
+        frameMoves = frameMoves == null ? new int[capacity] : Arrays.copyOf(frameMoves, capacity);
+        frameRum = frameRum == null ? new boolean[capacity] : Arrays.copyOf(frameRum, capacity);
+        frameAlive = frameAlive == null ? new boolean[capacity] : Arrays.copyOf(frameAlive, capacity);
+    }
+
+
+    /**
+     * <h3>Enter the cell and push its frame if it should be expanded</h3>
+     * This is the body of recursive method before the loop over moves.
+     * @param start {@code Coordinates} of path start point
+     * @param target {@code Coordinates} of the target
+     * @param cell index of the cell to enter
+     * @param currentValue length of path to the cell
+     * @param haveRum whether actor has the rum on this branch
+     * @param krakenAlive whether Kraken is alive on this branch
+     */
+    private void enter(Coordinates start, Coordinates target, int cell, int currentValue, boolean haveRum,
+                       boolean krakenAlive){
+        actor.explore(cell);
+        if(currentValue + getHeuristic(cell, target) >= getBound() || currentValue > maxDepth)
+            return;
+        if(isDominated(cell, currentValue, haveRum, krakenAlive))
+            return;
+        if(cell == actor.index(target) && getBound() > currentValue){
+            record(start, target, currentValue, krakenAlive);
+            return;
+        }
+        push(cell, currentValue, haveRum, krakenAlive);
+    }
+
+
+    /**
+     * <h3>Mark the cell as visited and push its frame</h3>
+     * @param cell index of the cell
+     * @param currentValue length of path to the cell
+     * @param haveRum whether actor has the rum on this branch
+     * @param krakenAlive whether Kraken is alive on this branch
+     */
+    void push(int cell, int currentValue, boolean haveRum, boolean krakenAlive){
+        actor.visited[cell] = true;
+        ++expandedNodes;
+        if(depth == frameCells.length)
+            allocateFrames(2 * depth);
+        frameCells[depth] = cell;
+        frameValues[depth] = currentValue;
+        frameRum[depth] = haveRum;
+        frameAlive[depth] = krakenAlive;
+        frameMoves[depth] = 0;
+        ++depth;
+    }
+
+
+    /**
+     * <h3>Length of the shortest path found so far</h3>
+     * Branches that can not be shorter than this length are cut off.
+     * @return length of the best path
+     */
+    int getBound(){
+        return this.minimum;
+    }
+
+
+    /**
+     * <h3>Remember the path to the target as the best one</h3>
+     * @param start {@code Coordinates} of path start point
+     * @param target {@code Coordinates} of the target
+     * @param currentValue length of the path
+     * @param krakenAlive whether Kraken is alive on this path
+     */
+    void record(Coordinates start, Coordinates target, int currentValue, boolean krakenAlive){
+        anyPathFound = true;
+        this.isKrakenAlive = krakenAlive;
+        minimum = currentValue;
+        rememberPath(start, target);
+    }
+
+
+    /**
+     * <h3>Loop over explicit stack that replaces recursion</h3>
+     * @param start {@code Coordinates} of path start point
+     * @param current index of the first cell
+     * @param currentValue length of path to the first cell
+     * @param target {@code Coordinates} of the target
+     * @param haveRum whether actor has the rum at the first cell
+     * @param krakenAlive whether Kraken is alive at the first cell
+     */
+    void search(Coordinates start, int current, int currentValue, Coordinates target, boolean haveRum,
+                boolean krakenAlive){
+        int width = actor.getWidth();
+        depth = 0;
+        enter(start, target, current, currentValue, haveRum, krakenAlive);
+        while (depth > 0) {
+            int top = depth - 1, cell = frameCells[top];
+            if(frameMoves[top] == possibleMoves.length) {
+                actor.visited[cell] = false;
+                --depth;
+                continue;
+            }
+            int[] possibleMove = possibleMoves[frameMoves[top]++];
+            if(!inBoundaries(cell / width + possibleMove[0], cell % width + possibleMove[1]))
+                continue;
+            int nextCell = cell + possibleMove[0] * width + possibleMove[1];
+            actor.explore(nextCell);
+            if(actor.visited[nextCell])
+                continue;
+            int nextValue = frameValues[top] + 1;
+            boolean rum = frameRum[top], alive = frameAlive[top];
+            if(actor.howDanger(nextCell) == 0) {
+                actor.parents[nextCell] = cell;
+                if(actor.getId(nextCell) == ObjectValues.TORTUGA.value)
+                    enter(start, target, nextCell, nextValue, true, alive && !isKrakenSafe(nextCell));
+                else
+                    enter(start, target, nextCell, nextValue, rum, alive);
+            } else if((!alive || isKrakenSafe(cell) && rum) && actor.howDanger(nextCell) == 1 &&
+                    isKrakenPerception(nextCell)) {
+                actor.parents[nextCell] = cell;
+                enter(start, target, nextCell, nextValue, true, false);
+            }
+        }
+    }
+
+
+    @Override
+    public void backtracking(Coordinates start, Coordinates current, int currentValue, Coordinates target,
+                             boolean haveRum, boolean krakenAlive){
+        search(start, actor.index(current), currentValue, target, haveRum, krakenAlive);
+        restorePath();
+    }
+}
+
+
+/**
+ * <h2>Parallel backtracking class</h2>
+ * Branch and bound version of {@code IterativeBacktracking} for {@code ForkJoinPool}. Subtrees of the first
+ * {@code splitDepth} levels of search tree are forked as separate tasks, deeper levels are searched sequentially inside
+ * the task. The length of the best path found by any task is shared through {@code AtomicInteger}, so a task cuts off
+ * branches using paths found by the other tasks. Each task has its own copy of the actor, so visited flags, parents
+ * and best values of cells are not shared between threads.
+ */
+class ParallelBacktracking extends IterativeBacktracking{
+    private final ForkJoinPool pool;
+    private final int splitDepth;
+    //length of the best path found by any task
+    private final AtomicInteger bound = new AtomicInteger(Integer.MAX_VALUE);
+    //nodes expanded by the tasks
+    private final LongAdder expanded = new LongAdder();
+
+
+    /**
+     * <h3>Constructor for a parallel backtracking algorithm instance on the common pool</h3>
+     * @param actor given {@code Actor} for an algorithm execution
+     */
+    public ParallelBacktracking(Actor actor) {
+        this(actor, ForkJoinPool.commonPool(), 2);
+    }
+
+
+    /**
+     * <h3>Constructor for a parallel backtracking algorithm instance</h3>
+     * @param actor given {@code Actor} for an algorithm execution
+     * @param pool {@code ForkJoinPool} that executes tasks
+     * @param splitDepth number of levels of search tree that are forked as separate tasks
+     */
+    public ParallelBacktracking(Actor actor, ForkJoinPool pool, int splitDepth) {
+        super(actor);
+        this.pool = pool;
+        this.splitDepth = splitDepth;
+    }
+
+
+    @Override
+    public void backtracking(Coordinates start, Coordinates current, int currentValue, Coordinates target,
+                             boolean haveRum, boolean krakenAlive){
+        bound.set(this.minimum);
+        pool.invoke(new BranchTask(start, target, new int[0], actor.index(current), currentValue, haveRum,
+                krakenAlive));
+        this.minimum = bound.get();
+        expandedNodes += expanded.sumThenReset();
+    }
+
+
+    /**
+     * <h2>Search of one subtree</h2>
+     * Sequential search on its own copy of the actor. Cells on the path from the root of search tree to the root of
+     * subtree are marked as visited and linked by parents, so the found path is restored up to the start point.
+     */
+    private class Worker extends IterativeBacktracking{
+        private final Coordinates start, target;
+        private final int[] prefix;
+        private final List<ForkJoinTask<Void>> subtasks = new ArrayList<>();
+
+
+        /**
+         * <h3>Constructor for a worker of the subtree</h3>
+         * @param start {@code Coordinates} of path start point
+         * @param target {@code Coordinates} of the target
+         * @param prefix indices of cells on the path to the root of subtree
+         * @param root index of the root of subtree
+         */
+        Worker(Coordinates start, Coordinates target, int[] prefix, int root) {
+            super(new Actor(ParallelBacktracking.this.actor));
+            this.start = start;
+            this.target = target;
+            this.prefix = prefix;
+            for(int i = 0; i < prefix.length; ++i) {
+                actor.visited[prefix[i]] = true;
+                if(i > 0)
+                    actor.parents[prefix[i]] = prefix[i - 1];
+            }
+            if(prefix.length > 0)
+                actor.parents[root] = prefix[prefix.length - 1];
+        }
+
+
+        @Override
+        int getBound(){
+            return bound.get();
+        }
+
+
+        @Override
+        void record(Coordinates start, Coordinates target, int currentValue, boolean krakenAlive){
+            synchronized (ParallelBacktracking.this) {
+                if(currentValue < bound.get()) {
+                    bound.set(currentValue);
+                    ParallelBacktracking.this.anyPathFound = true;
+                    ParallelBacktracking.this.isKrakenAlive = krakenAlive;
+                    ParallelBacktracking.this.setBestPath(getPath(start, target));
+                }
+            }
+        }
+
+
+        @Override
+        void push(int cell, int currentValue, boolean haveRum, boolean krakenAlive){
+            if(depth > 0 && prefix.length + depth <= splitDepth) {
+                int[] childPrefix = Arrays.copyOf(prefix, prefix.length + depth);
+                System.arraycopy(frameCells, 0, childPrefix, prefix.length, depth);
+                subtasks.add(new BranchTask(start, target, childPrefix, cell, currentValue, haveRum, krakenAlive).fork());
+            } else
+                super.push(cell, currentValue, haveRum, krakenAlive);
+        }
+    }
+
+
+    /**
+     * <h2>Task that searches one subtree and forks tasks for its upper levels</h2>
+     */
+    private class BranchTask extends RecursiveAction{
+        private static final long serialVersionUID = 1L;
+        private final Coordinates start, target;
+        private final int[] prefix;
+        private final int root, rootValue;
+        private final boolean haveRum, krakenAlive;
+
+
+        BranchTask(Coordinates start, Coordinates target, int[] prefix, int root, int rootValue, boolean haveRum,
+                   boolean krakenAlive) {
+            this.start = start;
+            this.target = target;
+            this.prefix = prefix;
+            this.root = root;
+            this.rootValue = rootValue;
+            this.haveRum = haveRum;
+            this.krakenAlive = krakenAlive;
+        }
+
+
+        @Override
+        protected void compute() {
+            Worker worker = new Worker(start, target, prefix, root);
+            worker.search(start, root, rootValue, target, haveRum, krakenAlive);
+            expanded.add(worker.expandedNodes);
+            for(ForkJoinTask<Void> subtask: worker.subtasks)
+                subtask.join();
+        }
+    }
+}
+
+
+/**
+ * <h2>IDA* class</h2>
+ * Iterative deepening A* over the states (cell, haveRum, krakenAlive) with the rules of {@code productAStar}. Each
+ * iteration is a depth first search that cuts off states with f value greater than the bound, the next bound is the
+ * minimal f value that was cut off. There is no table of values for cells and no limit of depth: the search keeps only
+ * the current path on the explicit stack, so memory of the search grows with the length of the path and not with the
+ * size of the map. A state is not entered again if it is already on the current path. Rum and Kraken flags only change in one
+ * direction along the path, so only the top part of the stack with the same flags is checked.
+ */
+class IDAStar extends Algorithm{
+    //frames of the stack: state and index of the next move, length of the path to the state is the index of the frame
+    private int[] frameStates, frameMoves;
+    private int depth;
+    //states filled by the check of reachability, kept between executions
+    private final BitSet filled = new BitSet();
+
+
+    /**
+     * <h3>Constructor for an IDA* algorithm instance</h3>
+     * @param actor given {@code Actor} for an algorithm execution
+     */
+    public IDAStar(Actor actor) {
+        super(actor);
+        frameStates = new int[16];
+        frameMoves = new int[16];
+    }
+
+
+    /**
+     * <h3>Push the state to the stack</h3>
+     * @param state index of the state
+     */
+    private void push(int state){
+        if(depth == frameStates.length) {
+            frameStates = Arrays.copyOf(frameStates, 2 * depth);
+            frameMoves = Arrays.copyOf(frameMoves, 2 * depth);
+        }
+        frameStates[depth] = state;
+        frameMoves[depth] = 0;
+        ++depth;
+        ++expandedNodes;
+    }
+
+
+    /**
+     * <h3>Check if the state is on the current path</h3>
+     * @param state index of the state
+     * @return {@code boolean} result flag
+     */
+    private boolean onPath(int state){
+        for (int i = depth - 1; i >= 0 && (frameStates[i] & 3) == (state & 3); --i)
+            if(frameStates[i] == state)
+                return true;
+        return false;
+    }
+
+
+    /**
+     * <h3>One iteration of depth first search with the bound</h3>
+     * @param startState index of the start state
+     * @param target {@code Coordinates} of the target
+     * @param bound maximal f value of entered states
+     * @return {@code int} -1 if the target is reached, otherwise minimal f value that is greater than the bound
+     */
+    private int search(int startState, Coordinates target, int bound){
+        int width = actor.getWidth(), targetCell = actor.index(target), next = Integer.MAX_VALUE;
+        depth = 0;
+        push(startState);
+        while (depth > 0) {
+            int top = depth - 1, state = frameStates[top], cell = state >> 2;
+            if(frameMoves[top] == possibleMoves.length) {
+                --depth;
+                continue;
+            }
+            int[] possibleMove = possibleMoves[frameMoves[top]++];
+            if(!inBoundaries(cell / width + possibleMove[0], cell % width + possibleMove[1]))
+                continue;
+            int nextCell = cell + possibleMove[0] * width + possibleMove[1];
+            if(!canEnter(nextCell, (state & 1) != 0))
+                continue;
+            int f = top + 1 + getHeuristic(nextCell, target);
+            if(f > bound) {
+                next = Math.min(next, f);
+                continue;
+            }
+            int nextState = enter(nextCell, state);
+            if(onPath(nextState))
+                continue;
+            push(nextState);
+            if(nextCell == targetCell && actor.howDanger(targetCell) == 0)
+                return -1;
+        }
+        return next;
+    }
+
+
+    /**
+     * <h3>Check if the target can be reached</h3>
+     * Without this check IDA* enumerates all simple paths before it finds out that there is no path. The check is a
+     * depth first fill over states that keeps one bit per state, the stack of states to fill is the array of states of
+     * frames, which is not used between iterations. Nothing is allocated unless the array has to grow.
+     * @param startState index of the start state
+     * @param targetCell index of the target cell
+     * @return {@code boolean} result flag
+     */
+    private boolean isReachable(int startState, int targetCell){
+        int width = actor.getWidth(), size = 0;
+        filled.clear();
+        filled.set(startState);
+        frameStates[size++] = startState;
+        while (size > 0) {
+            int state = frameStates[--size], cell = state >> 2;
+            for (int[] possibleMove : possibleMoves) {
+                if(!inBoundaries(cell / width + possibleMove[0], cell % width + possibleMove[1]))
+                    continue;
+                int nextCell = cell + possibleMove[0] * width + possibleMove[1];
+                if(!canEnter(nextCell, (state & 1) != 0))
+                    continue;
+                if(nextCell == targetCell)
+                    return true;
+                int nextState = enter(nextCell, state);
+                if(filled.get(nextState))
+                    continue;
+                filled.set(nextState);
+                if(size == frameStates.length) {
+                    frameStates = Arrays.copyOf(frameStates, 2 * size);
+                    frameMoves = Arrays.copyOf(frameMoves, 2 * size);
+                }
+                frameStates[size++] = nextState;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * <h3>IDA* execution algorithm</h3>
+     * @param start given {@code Coordinates} of start
+     * @param target given {@code Coordinates} target to reach
+     * @return {@code LinkedList} shortest path or list of zero length
+     */
+    @Override
+    public LinkedList<Coordinates> execute(Coordinates start, Coordinates target){
+        LinkedList<Coordinates> result = new LinkedList<>();
+        int startCell = actor.index(start);
+        if(actor.howDanger(startCell) != 0)
+            return result;
+        actor.setCoordinates(start);
+        actor.explore();
+        boolean startRum = actor.getId(startCell) == ObjectValues.TORTUGA.value;
+        int startState = state(startCell, startRum, !(startRum && isKrakenSafe(start)));
+        if(startCell == actor.index(target)) {
+            result.add(start);
+            anyPathFound = true;
+            return result;
+        }
+        //the check is made only if the target is not found with the first bound, so solved maps do not pay for it
+        for (int bound = getHeuristic(start, target), first = bound; bound != Integer.MAX_VALUE; ) {
+            int next = search(startState, target, bound);
+            if(next != -1 && bound == first && !isReachable(startState, actor.index(target)))
+                return result;
+            bound = next;
+            if(bound == -1) {
+                anyPathFound = true;
+                this.isKrakenAlive = (frameStates[depth - 2] & 1) != 0;
+                for (int i = 0; i < depth; ++i)
+                    result.add(actor.toCoordinates(frameStates[i] >> 2));
+                return result;
+            }
+        }
+        return result;
+    }
+}
+
+
+/**
+ * <h2>Wavefront search class</h2>
+ * Breadth first search over the states (cell, haveRum, krakenAlive) with the rules of {@code productAStar}, where the
+ * whole frontier is expanded at once by operations on bit boards. There is one board of cells for each of three
+ * possible pairs of flags (Kraken can not be killed without rum). Each step moves all cells of the frontier to their
+ * eight neighbours by shifts, keeps the cells that can be entered with these flags, moves the cells where flags change
+ * (Tortuga and diagonals from Kraken) to the boards of new flags and removes visited states. The step at which each
+ * state is reached is written to the table of distances, so the path is restored from the target back to the start
+ * by checking neighbours one step closer. The view of the map, the boards and the table are created once for the
+ * instance and reused by executions.
+ */
+class WavefrontSearch extends Algorithm{
+    private final BitBoardMap view;
+    //visited states, states of the current step and of the next one, as layers indexed by flags
+    private final BitBoard[] visited;
+    private BitBoard[] frontier, next;
+    //distances[state] is the step at which the state is reached, or -1
+    private final int[] distances;
+
+    WavefrontSearch(Actor actor) {
+        super(actor);
+        view = new BitBoardMap(actor.getEnvironment());
+        visited = view.layers(0, 0);
+        frontier = view.layers(0, 0);
+        next = view.layers(0, 0);
+        distances = new int[actor.getHeight() * actor.getWidth() << 2];
+    }
+
+
+    //order in which flags before entering a cell are tried for flags after it, the same flags go first
+    private static final int[][] PREVIOUS_FLAGS_ORDER = {{}, {1, 3, 2}, {2, 3, 1}, {3, 2, 1}};
+
+
+    /**
+     * <h3>Check if flags could be before entering the cell with given flags after it</h3>
+     * @param view bit board view of the map
+     * @param cell index of the cell
+     * @param flags flags after entering the cell
+     * @param previous flags before entering the cell
+     * @return {@code boolean} result flag
+     */
+    private boolean isPreviousFlags(BitBoardMap view, int cell, int flags, int previous){
+        boolean tortuga = view.tortuga.get(cell), krakenSafe = view.krakenSafe.get(cell);
+        return switch (flags) {
+            case BitBoardMap.NO_RUM -> previous == BitBoardMap.NO_RUM && !tortuga;
+            case BitBoardMap.RUM -> !krakenSafe && (previous == BitBoardMap.RUM || previous == BitBoardMap.NO_RUM && tortuga);
+            default -> previous == BitBoardMap.RUM_KRAKEN_DEAD ||
+                    previous == BitBoardMap.RUM && krakenSafe && view.safe.get(cell) ||
+                    previous == BitBoardMap.NO_RUM && tortuga && krakenSafe;
+        };
+    }
+
+
+    /**
+     * <h3>Wavefront search execution algorithm</h3>
+     * @param start given {@code Coordinates} of start
+     * @param target given {@code Coordinates} target to reach
+     * @return {@code LinkedList} shortest path or list of zero length
+     */
+    @Override
+    public LinkedList<Coordinates> execute(Coordinates start, Coordinates target){
+        LinkedList<Coordinates> result = new LinkedList<>();
+        int startCell = actor.index(start), targetCell = actor.index(target), width = actor.getWidth();
+        if(actor.howDanger(startCell) != 0 || actor.howDanger(targetCell) != 0)
+            return result;
+        actor.setCoordinates(start);
+        actor.explore();
+        boolean startRum = actor.getId(startCell) == ObjectValues.TORTUGA.value;
+        int startFlags = state(0, startRum, !(startRum && isKrakenSafe(start)));
+        Arrays.fill(distances, -1);
+        for (int flags = 0; flags < 4; ++flags) {
+            visited[flags].clear();
+            frontier[flags].clear();
+        }
+        visited[startFlags].set(startCell);
+        frontier[startFlags].set(startCell);
+        distances[startCell << 2 | startFlags] = 0;
+        int targetFlags = 0, steps = 0;
+        while (targetFlags == 0) {
+            for (int flags = 1; flags < 4; ++flags)
+                expandedNodes += frontier[flags].cardinality();
+            BitBoard[] swap = view.step(frontier, next);
+            next = frontier;
+            frontier = swap;
+            ++steps;
+            boolean empty = true;
+            for (int flags = 1; flags < 4; ++flags) {
+                visited[flags].or(frontier[flags].andNot(visited[flags]));
+                empty &= frontier[flags].isEmpty();
+                for (int cell = frontier[flags].nextSetBit(0); cell != -1;
+                     cell = frontier[flags].nextSetBit(cell + 1))
+                    distances[cell << 2 | flags] = steps;
+            }
+            if(empty)
+                return result;
+            for (int flags = 1; flags < 4; ++flags)
+                if(frontier[flags].get(targetCell))
+                    targetFlags = flags;
+        }
+        int cell = targetCell, flags = targetFlags;
+        result.addFirst(target);
+        for (int step = steps; step > 0; --step) {
+            int y = cell / width, x = cell % width, previousCell = -1, previousFlags = -1;
+            for (int candidate : PREVIOUS_FLAGS_ORDER[flags]) {
+                if(!isPreviousFlags(view, cell, flags, candidate))
+                    continue;
+                for (int[] possibleMove : possibleMoves)
+                    if(inBoundaries(y + possibleMove[0], x + possibleMove[1]) &&
+                            distances[(cell + possibleMove[0] * width + possibleMove[1]) << 2 | candidate] ==
+                                    step - 1) {
+                        previousCell = cell + possibleMove[0] * width + possibleMove[1];
+                        previousFlags = candidate;
+                        break;
+                    }
+                if(previousCell != -1)
+                    break;
+            }
+            if(step == steps)
+                this.isKrakenAlive = (previousFlags & 1) != 0;
+            cell = previousCell;
+            flags = previousFlags;
+            actor.explore(cell);
+            result.addFirst(actor.toCoordinates(cell));
+        }
+        this.anyPathFound = true;
+        return result;
+    }
+}
+
+
+/**
+ * <h2>Query class</h2>
+ * Pair of start and target for the batch search.
+ */
+class Query{
+    final Coordinates start, target;
+
+    Query(Coordinates start, Coordinates target) {
+        this.start = start;
+        this.target = target;
+    }
+}
+
+
+/**
+ * <h2>Query result class</h2>
+ * Path found for one query of the batch search, the flag of Kraken on this path and the time of the query. The time
+ * includes the equal share of the search that was made for all queries with the same start.
+ */
+class QueryResult{
+    final LinkedList<Coordinates> path;
+    final boolean krakenAlive;
+    //time in nanoseconds
+    final long time;
+
+    QueryResult(LinkedList<Coordinates> path, boolean krakenAlive, long time) {
+        this.path = path;
+        this.krakenAlive = krakenAlive;
+        this.time = time;
+    }
+}
+
+
+/**
+ * <h2>Batch search class</h2>
+ * Answers many queries on the same map with one actor, so cells explored by one query are known to the others. Queries
+ * are grouped by start: a large group is answered by one breadth first search over the states
+ * (cell, haveRum, krakenAlive) from the start with the rules of {@code productAStar}, which stops when all targets of
+ * the group are reached, and queries of a small group are answered by {@code productAStar} one by one. All moves have
+ * the same cost, so the first state of the target that is reached by the search gives the shortest path. The search
+ * may visit the whole map, while A* goes almost straight to the target, so the group is large when the number of its
+ * queries multiplied by the perimeter of the map is at least the area of the map. A query with the target at the start
+ * has the path of the only cell.
+ */
+class BatchSearch extends Algorithm{
+    private final AStar aStar;
+
+    BatchSearch(Actor actor) {
+        super(actor);
+        this.aStar = new AStar(actor, true);
+    }
+
+
+    /**
+     * <h3>Breadth first search from the start to all targets of the group</h3>
+     * @param start {@code Coordinates} of the start
+     * @param targets indices of target cells
+     * @param parents array for parents of states, filled by the search
+     * @return array of reached states of targets, -1 for targets that can not be reached
+     */
+    private int[] breadthFirstSearch(Coordinates start, int[] targets, int[] parents){
+        int startCell = actor.index(start), width = actor.getWidth();
+        int[] result = new int[targets.length], queue = new int[parents.length];
+        Arrays.fill(result, -1);
+        Arrays.fill(parents, -2);
+        //indices of queries of the group for each target cell, so the search does not scan all targets on each state
+        Map<Integer, List<Integer>> waiting = new HashMap<>();
+        for (int i = 0; i < targets.length; ++i)
+            if(actor.howDanger(targets[i]) == 0)
+                waiting.computeIfAbsent(targets[i], cell -> new ArrayList<>()).add(i);
+        actor.setCoordinates(start);
+        actor.explore();
+        boolean startRum = actor.getId(startCell) == ObjectValues.TORTUGA.value;
+        int head = 0, tail = 0, startState = state(startCell, startRum, !(startRum && isKrakenSafe(start)));
+        parents[startState] = -1;
+        queue[tail++] = startState;
+        if(waiting.containsKey(startCell))
+            for (int i : waiting.remove(startCell))
+                result[i] = startState;
+        while (head < tail && !waiting.isEmpty()) {
+            int cameFrom = queue[head++], y = (cameFrom >> 2) / width, x = (cameFrom >> 2) % width;
+            ++expandedNodes;
+            for (int[] possibleMove : possibleMoves) {
+                if(!inBoundaries(y + possibleMove[0], x + possibleMove[1]))
+                    continue;
+                int cameTo = (cameFrom >> 2) + possibleMove[0] * width + possibleMove[1];
+                if(!canEnter(cameTo, (cameFrom & 1) != 0))
+                    continue;
+                int next = enter(cameTo, cameFrom);
+                if(parents[next] != -2)
+                    continue;
+                parents[next] = cameFrom;
+                queue[tail++] = next;
+                if(waiting.containsKey(cameTo))
+                    for (int i : waiting.remove(cameTo))
+                        result[i] = next;
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * <h3>Answer all queries</h3>
+     * @param queries list of queries
+     * @return array of results in the same order as queries
+     */
+    public QueryResult[] execute(List<Query> queries){
+        QueryResult[] results = new QueryResult[queries.size()];
+        Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < queries.size(); ++i)
+            groups.computeIfAbsent(actor.index(queries.get(i).start), cell -> new ArrayList<>()).add(i);
+        int[] parents = new int[actor.getHeight() * actor.getWidth() << 2];
+        for (List<Integer> group : groups.values()) {
+            Coordinates start = queries.get(group.get(0)).start;
+            if(group.size() * 2 * (actor.getHeight() + actor.getWidth()) < actor.getHeight() * actor.getWidth()) {
+                for (int i : group) {
+                    long begin = System.nanoTime();
+                    LinkedList<Coordinates> path;
+                    aStar.isKrakenAlive = true;
+                    if(queries.get(i).target.equals(start))
+                        path = breadthFirstSearch(start, new int[]{actor.index(start)}, parents)[0] == -1 ?
+                                new LinkedList<>() : new LinkedList<>(List.of(start));
+                    else
+                        path = aStar.execute(start, queries.get(i).target);
+                    results[i] = new QueryResult(path, aStar.isKrakenAlive, System.nanoTime() - begin);
+                }
+                continue;
+            }
+            long begin = System.nanoTime();
+            int[] targets = new int[group.size()];
+            for (int i = 0; i < group.size(); ++i)
+                targets[i] = actor.index(queries.get(group.get(i)).target);
+            int[] reached = actor.howDanger(actor.index(start)) == 0 ?
+                    breadthFirstSearch(start, targets, parents) : new int[0];
+            long shared = (System.nanoTime() - begin) / group.size();
+            for (int i = 0; i < group.size(); ++i) {
+                begin = System.nanoTime();
+                LinkedList<Coordinates> path = new LinkedList<>();
+                boolean krakenAlive = true;
+                if(i < reached.length && reached[i] != -1) {
+                    for (int state = reached[i]; state != -1; state = parents[state])
+                        path.addFirst(actor.toCoordinates(state >> 2));
+                    if(parents[reached[i]] != -1)
+                        krakenAlive = (parents[reached[i]] & 1) != 0;
+                }
+                results[group.get(i)] = new QueryResult(path, krakenAlive, shared + System.nanoTime() - begin);
+            }
+        }
+        expandedNodes += aStar.expandedNodes;
+        aStar.expandedNodes = 0;
+        return results;
+    }
+
+
+    @Override
+    public LinkedList<Coordinates> execute(Coordinates start, Coordinates target){
+        QueryResult result = execute(List.of(new Query(start, target)))[0];
+        this.isKrakenAlive = result.krakenAlive;
+        this.anyPathFound = !result.path.isEmpty();
+        return result.path;
+    }
+}
+
+
+/**
+ * <h2>Distance field search class</h2>
+ * Reads the path to Dead Man's Chest from the {@code DistanceField} of the map by following next moves from the start
+ * state, so each query takes time proportional to the length of the path after the field is built once for the
+ * snapshot. Paths to other targets are found by {@code productAStar}.
+ */
+class DistanceFieldSearch extends Algorithm{
+
+    DistanceFieldSearch(Actor actor) {
+        super(actor);
+    }
+
+
+    @Override
+    public LinkedList<Coordinates> execute(Coordinates start, Coordinates target){
+        DistanceField field = actor.getEnvironment().distanceField();
+        int startCell = actor.index(start);
+        if(actor.index(target) != field.getChest()) {
+            AStar aStar = new AStar(actor, true);
+            LinkedList<Coordinates> result = aStar.execute(start, target);
+            this.anyPathFound = aStar.anyPathFound;
+            this.isKrakenAlive = aStar.isKrakenAlive;
+            this.expandedNodes += aStar.expandedNodes;
+            return result;
+        }
+        LinkedList<Coordinates> result = new LinkedList<>();
+        int state = field.startState(startCell);
+        if(actor.howDanger(startCell) != 0 || field.distance(state) < 0)
+            return result;
+        actor.setCoordinates(start);
+        result.add(start);
+        this.isKrakenAlive = (state & 1) != 0;
+        while (field.distance(state) > 0) {
+            actor.explore(state >> 2);
+            this.isKrakenAlive = (state & 1) != 0;
+            state = field.next(state);
+            ++expandedNodes;
+            result.add(actor.toCoordinates(state >> 2));
+        }
+        this.anyPathFound = true;
+        return result;
+    }
+}
+
+
+/**
+ * <h2>Cache of solved maps</h2>
+ * Keeps results of algorithms for maps that were already solved. The key is the fingerprint of the map: its size and
+ * cells of the six objects, which define all the cells of the map, together with the start cell and the algorithm,
+ * which also defines the spyglass. Paths are stored as arrays of cells and every hit gets new {@code Coordinates}, so
+ * callers can not change the cached result. The number of entries is bounded and the least recently used entry is
+ * evicted. All methods can be called from several threads: the table is guarded by the lock of the cache, the search
+ * of a missed map runs without the lock, so two threads that miss the same key at once both solve it.
+ */
+class SolveCache{
+    private final int capacity;
+    private final LinkedHashMap<Key, Entry> entries;
+    private final LongAdder hits = new LongAdder(), misses = new LongAdder(), evictions = new LongAdder();
+
+
+    /**
+     * <h2>Key of the cache</h2>
+     */
+    private static final class Key{
+        //height, width and cells of Jack Sparrow, Davy Jones, Kraken, rock, chest and Tortuga
+        private final int[] map;
+        private final int start;
+        private final AlgorithmValues algorithmValue;
+
+        Key(GameMap gameMap, Coordinates start, AlgorithmValues algorithmValue) {
+            this.map = new int[]{gameMap.getHeight(), gameMap.getWidth(),
+                    gameMap.index(gameMap.getJackSparrow().getCoordinates()),
+                    gameMap.index(gameMap.getDavyJones().getCoordinates()),
+                    gameMap.index(gameMap.getKraken().getCoordinates()),
+                    gameMap.index(gameMap.getRock().getCoordinates()),
+                    gameMap.index(gameMap.getDeadMansChest().getCoordinates()),
+                    gameMap.index(gameMap.getTortuga().getCoordinates())};
+            this.start = gameMap.index(start);
+            this.algorithmValue = algorithmValue;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof Key key && start == key.start && algorithmValue == key.algorithmValue &&
+                    Arrays.equals(map, key.map);
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * Arrays.hashCode(map) + start) * 31 + algorithmValue.ordinal();
+        }
+    }
+
+
+    /**
+     * <h2>Cached result</h2>
+     */
+    private static final class Entry{
+        //cells of the path, empty for lose
+        private final int[] path;
+        private final boolean krakenAlive;
+
+        Entry(int[] path, boolean krakenAlive) {
+            this.path = path;
+            this.krakenAlive = krakenAlive;
+        }
+    }
+
+
+    /**
+     * <h2>Result of the solve</h2>
+     */
+    static final class Result{
+        final LinkedList<Coordinates> path;
+        final boolean krakenAlive, win;
+
+        Result(LinkedList<Coordinates> path, boolean krakenAlive) {
+            this.path = path;
+            this.krakenAlive = krakenAlive;
+            this.win = !path.isEmpty();
+        }
+    }
+
+
+    /**
+     * <h3>Constructor of the cache</h3>
+     * @param capacity maximal number of entries
+     */
+    SolveCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, SolveCache.Entry> eldest) {
+                if(size() <= SolveCache.this.capacity)
+                    return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+
+    /**
+     * <h3>Get result of the algorithm on the map from the cache or solve it</h3>
+     * @param gameMap map to solve
+     * @param start {@code Coordinates} of the start
+     * @param algorithmValue algorithm and spyglass to solve with
+     * @return {@code Result} with new path
+     */
+    public Result solve(GameMap gameMap, Coordinates start, AlgorithmValues algorithmValue){
+        Key key = new Key(gameMap, start, algorithmValue);
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if(entry == null) {
+            misses.increment();
+            Actor actor = new Actor(gameMap, gameMap.getJackSparrow().getCoordinates(),
+                    algorithmValue.getSpyGlass(gameMap));
+            Algorithm algorithm = algorithmValue.getAlgorithm(actor);
+            List<Coordinates> path = algorithm.execute(start, actor.findDeadMansChest());
+            int[] cells = new int[path.size()];
+            int i = 0;
+            for (Coordinates coordinates: path)
+                cells[i++] = gameMap.index(coordinates);
+            entry = new Entry(cells, algorithm.isKrakenAlive);
+            synchronized (this) {
+                entries.put(key, entry);
+            }
+        } else
+            hits.increment();
+        LinkedList<Coordinates> path = new LinkedList<>();
+        for (int cell: entry.path)
+            path.add(Coordinates.fromIndex(cell, gameMap.getWidth()));
+        return new Result(path, entry.krakenAlive);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
+
+
+/**
+ * <h2>The main class that generates map or initializes it</h2>
+ * This is the class that consists of all the methods for map generation initialization on clearing(to get initial
+ * form). It is used to store all the data about map validate map, and used in some other classes to get data from.
+ */
+class GameMap{
+    //smallest side of the map, generation can place all objects on any map with sides of at least this length
+    public static final int MIN_SIDE = 4;
+
+    private List<MapObject> map_objects = new ArrayList<>(6);
+    private JackSparrow jack_sparrow;
+    private DavyJones davy_jones;
+    private Kraken kraken;
+    private Rock rock;
+    private DeadMansChest deadMansChest;
+    private Tortuga tortuga;
+
+    //flat storage of the map, cell with coordinates (y, x) is stored by index y * width + x
+    private byte[] ids, dangers;
+    private final int height, width;
+    //frozen copy of the map, it is dropped when the matrix is formed again
+    private MapSnapshot snapshot;
+
+
+    public GameMap() {
+        this(9, 9);
+    }
+
+
+    /**
+     * <h3>Constructor of a map with given size</h3>
+     * On smaller maps than {@code MIN_SIDE} the zones of enemies leave no place for some objects for many or all
+     * positions of the objects placed before them, so such maps are not allowed.
+     * @param height number of rows of the map
+     * @param width number of columns of the map
+     * @throws IllegalArgumentException if a side of the map is less than {@code MIN_SIDE}
+     */
+    public GameMap(int height, int width) {
+        if(height < MIN_SIDE || width < MIN_SIDE)
+            throw new IllegalArgumentException("Sides of the map should be at least " + MIN_SIDE + ", got " +
+                    height + "x" + width);
+        this.height = height;
+        this.width = width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+
+    /**
+     * <h3>Check if coordinates are placed on this map</h3>
+     * @param coordinates given {@code Coordinates}
+     * @return {@code boolean} result flag
+     */
+    public boolean inBoundaries(Coordinates coordinates){
+        return coordinates.inBoundaries(this.height, this.width);
+    }
+
+
+    /**
+     * <h3>Get index of the cell in flat map storage</h3>
+     * @param coordinates given {@code Coordinates} of the cell
+     * @return {@code int} index of the cell
+     */
+    public int index(Coordinates coordinates){
+        return coordinates.toIndex(this.width);
+    }
+
+    public char getId(int cell){
+        return (char) ids[cell];
+    }
+
+    private void setId(int cell, char id){
+        ids[cell] = (byte) id;
+    }
+
+    public int howDanger(int cell){
+        return dangers[cell];
+    }
+
+
+    /**
+     * <h3>Method to initialize map from given data</h3>
+     * @param jack_sparrow jack sparrow instance
+     * @param davy_jones davy jones instance
+     * @param kraken kraken instance
+     * @param rock rock instance
+     * @param deadMansChest dead mans chest instance
+     * @param tortuga tortuga instance
+     * @return {@code boolean} flag of success of the map initialization
+     */
+    public boolean initialize(JackSparrow jack_sparrow, DavyJones davy_jones, Kraken kraken, Rock rock, DeadMansChest deadMansChest, Tortuga tortuga){
+        for (MapObject map_object: Arrays.asList(jack_sparrow, davy_jones, kraken, rock, deadMansChest, tortuga))
+            if(!inBoundaries(map_object.getCoordinates()) || !checkedInsert(map_object)){
+                this.map_objects = new ArrayList<>(6);
+                return false;
+            }
+        makeMatrix();
+        return true;
+    }
+
+
+    /**
+     * <h3>Method of trying of insertion to the matrix starting from given coordinates</h3>
+     * @param map_object map object to insert
+     * @param x_begin start X-axis coordinates
+     * @param y_begin start Y-axis coordinates
+     * @return {@code boolean} flag of check whether the insertion possible
+     */
+    public boolean tryAnyInsertionStarting(MapObject map_object, int x_begin, int y_begin){
+        for(; y_begin < this.height; ++y_begin){
+            for (; x_begin < this.width; ++x_begin){
+                map_object.getCoordinates().setCoordinates(y_begin, x_begin);
+                if(checkedInsert(map_object)) return true;
+            }
+        }
+        for (y_begin = 0; y_begin < this.height; ++y_begin){
+            for (x_begin = 0; x_begin < this.width; ++x_begin){
+                map_object.getCoordinates().setCoordinates(y_begin, x_begin);
+                if(checkedInsert(map_object)) return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * <h3>Random map generation method</h3>
+     * If some object can not be placed the objects placed before it are removed, as in {@code initialize}.
+     * @param generator Random generator
+     * @return {@code boolean} flag of success of the map generation
+     */
+    public boolean generate(Random generator){
+        if(!checkedInsert(new JackSparrow(0, 0, this))){
+            this.map_objects = new ArrayList<>(6);
+            return false;
+        }
+        List<MapObject> new_map_objects =  Arrays.asList(new DavyJones(this), new Kraken(this),
+                new Rock(this), new DeadMansChest(this), new Tortuga(this));
+        for(MapObject map_object: new_map_objects){
+            int temp = generator.nextInt(0, this.height * this.width);
+            int i = temp / this.height, j = temp % this.height;
+            map_object.setCoordinates(new Coordinates(j, i));
+            if(!tryAnyInsertionStarting(map_object, i, j)){
+                this.map_objects = new ArrayList<>(6);
+                return false;
+            }
+        }
+        makeMatrix();
+        return true;
+    }
+
+
+    /**
+     * Method to remove kraken from the copy of ids of cells
+     * @param cells ids of cells indexed in the same way as the cells of the map
+     */
+    private void killKraken(char[] cells){
+        int[][] krakenZone = new int[][]{{1, 0}, {0, 1}, {0, -1}, {-1, 0}};
+        Coordinates krakenCoordinates = this.getKraken().getCoordinates();
+        for (int[] ints : krakenZone) {
+            Coordinates coordinates = krakenCoordinates.getSum(ints[0], ints[1]);
+            if(inBoundaries(coordinates))
+                if (howDanger(index(coordinates)) == 1)
+                    cells[index(coordinates)] = ObjectValues.SEA.value;
+        }
+        int krakenCell = index(krakenCoordinates);
+        if(howDanger(krakenCell) == 1)
+            cells[krakenCell] = ObjectValues.SEA.value;
+        else
+            if(getId(krakenCell) == ObjectValues.KRAKEN_AND_ROCK.value)
+                cells[krakenCell] = ObjectValues.ROCK.value;
+            else
+                cells[krakenCell] = ObjectValues.SEA.value;
+    }
+
+
+    /**
+     * Method to form matrix for future algorithms execution
+     */
+    public void makeMatrix(){
+        snapshot = null;
+        ids = new byte[this.height * this.width];
+        dangers = new byte[this.height * this.width];
+        //zero id means that the cell is not occupied by any object or perception zone yet
+        for(MapObject map_object: this.map_objects) {
+            int cell = index(map_object.getCoordinates());
+            if(ids[cell] != 0) {
+                ++dangers[cell];
+                if(getId(cell) == ObjectValues.KRAKEN.value && map_object.get_id() == ObjectValues.ROCK.value ||
+                   getId(cell) == ObjectValues.ROCK.value && map_object.get_id() == ObjectValues.KRAKEN.value)
+                    setId(cell, ObjectValues.KRAKEN_AND_ROCK.value);
+                else if(getId(cell) == ObjectValues.JACK_SPARROW.value && map_object.get_id() == ObjectValues.TORTUGA.value ||
+                        getId(cell) == ObjectValues.TORTUGA.value && map_object.get_id() == ObjectValues.JACK_SPARROW.value)
+                    setId(cell, ObjectValues.TORTUGA_AND_JACK.value);
+                else
+                    setId(cell, map_object.get_id());
+            } else {
+                dangers[cell] = (byte) (map_object.enemy ? 1 : 0);
+                setId(cell, map_object.get_id());
+            }
+            for(Coordinates perception: map_object.get_perception_zone()) {
+                int perceptionCell = index(perception);
+                if (ids[perceptionCell] == 0) {
+                    dangers[perceptionCell] = 1;
+                    setId(perceptionCell, ObjectValues.PERCEPTION_ZONE.value);
+                } else
+                    ++dangers[perceptionCell];
+            }
+        }
+        for(int cell = 0; cell < this.height * this.width; ++cell)
+            if(ids[cell] == 0)
+                setId(cell, ObjectValues.SEA.value);
+    }
+
+    /**
+     * <h3>Get frozen copy of the map</h3>
+     * The copy is made once after the matrix is formed and then the same copy is returned, so actors created for the
+     * same map share it.
+     * @return {@code MapSnapshot} of the current matrix
+     */
+    public MapSnapshot snapshot(){
+        if(snapshot == null)
+            snapshot = new MapSnapshot(height, width, ids, dangers, index(getTortuga().getCoordinates()),
+                    index(getDeadMansChest().getCoordinates()));
+        return snapshot;
+    }
+
+
+    /**
+     * <h3>Map printer</h3>
+     * The path and the dead Kraken are drawn on the copy of ids of cells, so the map itself is not changed and can be
+     * used by other searches.
+     * @param printStream Printer instance
+     * @param path Found path
+     * @param krakenAlive whether Kraken is alive after the path
+     */
+    public void printMap(PrintStream printStream, List<Coordinates> path, boolean krakenAlive) {
+        char[] cells = new char[this.height * this.width];
+        for (int cell = 0; cell < cells.length; ++cell)
+            cells[cell] = getId(cell);
+        if(!krakenAlive)
+            killKraken(cells);
+        for(Coordinates coordinates: path)
+            cells[index(coordinates)] = ObjectValues.PATH.value;
+        printStream.print("  ");
+        for (int i = 0; i < this.width; ++i)
+            printStream.printf("%d ", i);
+        printStream.println();
+        for(int i = 0; i < this.height; ++i){
+            printStream.printf("%d ", i);
+            for(int j = 0; j < this.width; ++j){
+                printStream.printf("%c ", cells[i * this.width + j]);
+            }
+            printStream.println();
+        }
+    }
+
+    public boolean checkedInsert(MapObject new_map_object){
+        if (new_map_object.validate()){
+            insert(new_map_object);
+            return true;
+        }
+        return false;
+    }
+
+
+    /**
+     * <h3>Map insertion method</h3>
+     * @param new_map_object New object to insert
+     */
+    private void insert(MapObject new_map_object){
+        this.map_objects.add(new_map_object);
+        if (new_map_object.get_id() == ObjectValues.JACK_SPARROW.value) {
+            this.jack_sparrow = (JackSparrow) new_map_object;
+        }  else if(new_map_object.get_id() == ObjectValues.DAVY_JONES.value){
+            this.davy_jones = (DavyJones) new_map_object;
+        } else if (new_map_object.get_id() == ObjectValues.KRAKEN.value) {
+            this.kraken = (Kraken) new_map_object;
+        } else if (new_map_object.get_id() == ObjectValues.ROCK.value) {
+            this.rock = (Rock) new_map_object;
+        } else if (new_map_object.get_id() == ObjectValues.DEAD_MANS_CHEST.value){
+            this.deadMansChest = (DeadMansChest) new_map_object;
+        } else if (new_map_object.get_id() == ObjectValues.TORTUGA.value) {
+            this.tortuga = (Tortuga) new_map_object;
+        }
+    }
+
+    public JackSparrow getJackSparrow() {
+        return jack_sparrow;
+    }
+
+    public DavyJones getDavyJones() {
+        return davy_jones;
+    }
+
+    public Kraken getKraken() {
+        return kraken;
+    }
+
+    public Rock getRock() {
+        return rock;
+    }
+
+    public Tortuga getTortuga() {
+        return tortuga;
+    }
+
+    public DeadMansChest getDeadMansChest() {
+        return deadMansChest;
+    }
+
+}
+
+
+/**
+ * <h2>Snapshot of the map</h2>
+ * Frozen copy of the cells of {@code GameMap} that is used by {@code Compass}, {@code SpyGlass}, {@code Actor} and the
+ * algorithms. The arrays are copied in the constructor and never changed, so one snapshot can be published to any
+ * number of threads and read by them at the same time without locks. The only field that is not final is the cache of
+ * the distance field: it is immutable, so a thread either sees it or builds the same one again.
+ */
+final class MapSnapshot{
+    private final int height, width;
+    private final byte[] ids, dangers;
+    //indices of cells of objects shown by compass, coordinates are created on request because they are mutable
+    private final int tortuga, deadMansChest;
+    //distance field to the chest built on the first request
+    private DistanceField distanceField;
+
+    MapSnapshot(int height, int width, byte[] ids, byte[] dangers, int tortuga, int deadMansChest) {
+        this.height = height;
+        this.width = width;
+        this.ids = ids.clone();
+        this.dangers = dangers.clone();
+        this.tortuga = tortuga;
+        this.deadMansChest = deadMansChest;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public char getId(int cell){
+        return (char) ids[cell];
+    }
+
+    public int howDanger(int cell){
+        return dangers[cell];
+    }
+
+    public boolean inBoundaries(Coordinates coordinates){
+        return coordinates.inBoundaries(this.height, this.width);
+    }
+
+    public int index(Coordinates coordinates){
+        return coordinates.toIndex(this.width);
+    }
+
+
+    /**
+     * <h3>Get coordinates of the object shown by compass</h3>
+     * @param compassTarget object to find
+     * @return new {@code Coordinates} instance of the object
+     */
+    public Coordinates find(CompassTarget compassTarget){
+        return Coordinates.fromIndex(compassTarget == CompassTarget.TORTUGA ? tortuga : deadMansChest, width);
+    }
+
+
+    /**
+     * <h3>Get distance field to the chest</h3>
+     * The field is built once for the snapshot, a new snapshot is made when the map changes.
+     * @return {@code DistanceField} of this snapshot
+     */
+    public DistanceField distanceField(){
+        DistanceField result = distanceField;
+        if(result == null)
+            distanceField = result = new DistanceField(this);
+        return result;
+    }
+}
+
+
+/**
+ * <h2>Distance field to the chest</h2>
+ * Lengths of the shortest paths to Dead Man's Chest from all states (cell, haveRum, krakenAlive) of the map and the
+ * next move on such path, found by one breadth first search from the chest backwards. A previous state of the state
+ * is a state of the neighbour cell, where actor can stand, with such flags, that actor enters the cell of the state
+ * with them and gets the flags of the state by the rules of {@code productAStar}: rum on Tortuga and death of Kraken on
+ * the diagonal with rum. The chest is entered with any flags. The field is built from the snapshot of the map, so it
+ * does not depend on what actor has seen, and it is immutable after the constructor.
+ */
+final class DistanceField{
+    private static final int[][] MOVES = {{1, 1}, {1, 0}, {0, 1}, {1, -1}, {-1, 1}, {0, -1}, {-1, 0}, {-1, -1}};
+    private final int width, chest;
+    private final BitBoardMap view;
+    //length of the shortest path to the chest for each state, -1 if the chest can not be reached
+    private final int[] distances;
+    //index of the move in MOVES to the next cell on the shortest path for each state
+    private final byte[] nextMoves;
+
+    DistanceField(MapSnapshot map) {
+        int height = map.getHeight(), size = height * map.getWidth() << 2;
+        this.width = map.getWidth();
+        this.chest = map.index(map.find(CompassTarget.DEAD_MANS_CHEST));
+        this.view = new BitBoardMap(map);
+        this.distances = new int[size];
+        this.nextMoves = new byte[size];
+        Arrays.fill(distances, -1);
+        int[] queue = new int[size];
+        int head = 0, tail = 0;
+        if(map.howDanger(chest) == 0)
+            for (int flags = 1; flags < 4; ++flags) {
+                distances[chest << 2 | flags] = 0;
+                queue[tail++] = chest << 2 | flags;
+            }
+        while (head < tail) {
+            int state = queue[head++], cell = state >> 2, y = cell / width, x = cell % width;
+            for (int move = 0; move < MOVES.length; ++move) {
+                int previousY = y - MOVES[move][0], previousX = x - MOVES[move][1];
+                if(previousY < 0 || previousX < 0 || previousY >= height || previousX >= width)
+                    continue;
+                int previousCell = cell - MOVES[move][0] * width - MOVES[move][1];
+                for (int flags = 1; flags < 4; ++flags) {
+                    int previous = previousCell << 2 | flags;
+                    if(distances[previous] == -1 && canStand(previousCell, flags) && canStand(cell, flags) &&
+                            (cell == chest ? flags : enter(cell, flags)) == (state & 3)) {
+                        distances[previous] = distances[state] + 1;
+                        nextMoves[previous] = (byte) move;
+                        queue[tail++] = previous;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * <h3>Check if actor with given flags can be in the cell</h3>
+     * The same check is used for entering the cell with flags before the move.
+     * @param cell index of the cell
+     * @param flags flags of actor
+     * @return {@code boolean} result flag
+     */
+    private boolean canStand(int cell, int flags){
+        return view.safe.get(cell) || (flags & 1) == 0 && view.krakenZone.get(cell);
+    }
+
+
+    /**
+     * <h3>Get flags after entering the cell</h3>
+     * @param cell index of the cell
+     * @param flags flags before entering the cell
+     * @return flags of the state in the cell
+     */
+    private int enter(int cell, int flags){
+        boolean haveRum = (flags & 2) != 0 || view.tortuga.get(cell);
+        return (haveRum ? 2 : 0) | ((flags & 1) != 0 && !(haveRum && view.krakenSafe.get(cell)) ? 1 : 0);
+    }
+
+
+    /**
+     * <h3>Get the state of actor who starts in the cell</h3>
+     * Actor on Tortuga has rum and kills Kraken if Tortuga is on the diagonal from it.
+     * @param cell index of the start cell
+     * @return index of the state
+     */
+    public int startState(int cell){
+        return cell << 2 | enter(cell, 1);
+    }
+
+    public int getChest() {
+        return chest;
+    }
+
+
+    /**
+     * <h3>Get length of the shortest path from the state to the chest</h3>
+     * @param state index of the state
+     * @return length of the path or -1 if the chest can not be reached
+     */
+    public int distance(int state){
+        return distances[state];
+    }
+
+
+    /**
+     * <h3>Get the next state on the shortest path to the chest</h3>
+     * @param state index of the state, the chest must be reachable from it
+     * @return index of the next state
+     */
+    public int next(int state){
+        int cell = (state >> 2) + MOVES[nextMoves[state]][0] * width + MOVES[nextMoves[state]][1];
+        return cell << 2 | (cell == chest ? state & 3 : enter(cell, state & 3));
+    }
+}
+
+
+/**
+ * <h2>Bit board class</h2>
+ * Set of cells of the map stored as bits of {@code long} words. Cell with coordinates (y, x) is the bit with index
+ * y * width + x, so moving all cells of the set by the same displacement is one shift of the whole board.
+ */
+class BitBoard{
+    final int size;
+    final long[] words;
+
+    BitBoard(int size) {
+        this.size = size;
+        this.words = new long[(size + 63) >> 6];
+    }
+
+    BitBoard(BitBoard other) {
+        this.size = other.size;
+        this.words = other.words.clone();
+    }
+
+    public boolean get(int cell) {
+        return (words[cell >> 6] & 1L << cell) != 0;
+    }
+
+    public void set(int cell) {
+        words[cell >> 6] |= 1L << cell;
+    }
+
+    public boolean isEmpty() {
+        for (long word : words)
+            if(word != 0)
+                return false;
+        return true;
+    }
+
+    public int cardinality() {
+        int result = 0;
+        for (long word : words)
+            result += Long.bitCount(word);
+        return result;
+    }
+
+    public BitBoard or(BitBoard other) {
+        for (int i = 0; i < words.length; ++i)
+            words[i] |= other.words[i];
+        return this;
+    }
+
+    public BitBoard and(BitBoard other) {
+        for (int i = 0; i < words.length; ++i)
+            words[i] &= other.words[i];
+        return this;
+    }
+
+    public BitBoard andNot(BitBoard other) {
+        for (int i = 0; i < words.length; ++i)
+            words[i] &= ~other.words[i];
+        return this;
+    }
+
+    public BitBoard copy(BitBoard other) {
+        System.arraycopy(other.words, 0, words, 0, words.length);
+        return this;
+    }
+
+    public BitBoard clear() {
+        Arrays.fill(words, 0);
+        return this;
+    }
+
+
+    /**
+     * <h3>Find the first cell of the board starting from the given one</h3>
+     * @param cell index of the cell to start from
+     * @return index of the cell or -1 if there are no cells from the given one
+     */
+    public int nextSetBit(int cell) {
+        if(cell >= size)
+            return -1;
+        int index = cell >> 6;
+        long word = words[index] & -1L << cell;
+        while (word == 0) {
+            if(++index == words.length)
+                return -1;
+            word = words[index];
+        }
+        return index << 6 | Long.numberOfTrailingZeros(word);
+    }
+
+
+    /**
+     * <h3>Add cells of the other board moved by the given number of bits</h3>
+     * Cells that are moved out of the board are lost. The other board must not be this board.
+     * @param other board to move
+     * @param distance number of bits, positive distance moves cells to greater indices
+     * @return this board
+     */
+    public BitBoard orShift(BitBoard other, int distance) {
+        int wordShift = Math.floorDiv(distance, 64), bitShift = Math.floorMod(distance, 64);
+        for (int i = 0; i < words.length; ++i) {
+            int from = i - wordShift;
+            if(from >= 0 && from < words.length)
+                words[i] |= other.words[from] << bitShift;
+            if(bitShift != 0 && from - 1 >= 0 && from - 1 < words.length)
+                words[i] |= other.words[from - 1] >>> 64 - bitShift;
+        }
+        if((size & 63) != 0)
+            words[words.length - 1] &= -1L >>> 64 - (size & 63);
+        return this;
+    }
+
+
+    /**
+     * <h3>Get the board with all cells moved by the given number of bits</h3>
+     * @param distance number of bits, positive distance moves cells to greater indices
+     * @return {@code BitBoard} new board
+     */
+    public BitBoard shift(int distance) {
+        return new BitBoard(size).orShift(this, distance);
+    }
+}
+
+
+/**
+ * <h2>Bit board view of the map</h2>
+ * Boards of cells of the map that are used by searches over whole sets of cells: safe cells, cells of Kraken and its
+ * perception zone that can be entered after Kraken is killed, cells on a diagonal from Kraken where actor with rum
+ * kills it and Tortuga. The view is built from the map itself, so it does not depend on what actor has seen. Boards for
+ * intermediate results of moves are kept in the view, so one view must not be used by several threads at once.
+ */
+class BitBoardMap{
+    //flags of the layers in the same bits as in the index of state: rum is the second bit and Kraken is the first one
+    static final int NO_RUM = 1, RUM = 3, RUM_KRAKEN_DEAD = 2;
+    final int height, width;
+    final BitBoard safe, krakenZone, krakenSafe, tortuga;
+    //cells that can be entered after Kraken is killed
+    private final BitBoard passableDead;
+    //columns that are removed before moving cells to the right or to the left, so they do not cross the border
+    private final BitBoard firstColumn, lastColumn;
+    //boards for intermediate results
+    private final BitBoard horizontal, shifted;
+
+    BitBoardMap(MapSnapshot map) {
+        this.height = map.getHeight();
+        this.width = map.getWidth();
+        int size = height * width;
+        safe = new BitBoard(size);
+        krakenZone = new BitBoard(size);
+        krakenSafe = new BitBoard(size);
+        tortuga = new BitBoard(size);
+        firstColumn = new BitBoard(size);
+        lastColumn = new BitBoard(size);
+        for (int cell = 0; cell < size; ++cell) {
+            int y = cell / width, x = cell % width;
+            if(map.howDanger(cell) == 0)
+                safe.set(cell);
+            else if(map.howDanger(cell) == 1 && (map.getId(cell) == ObjectValues.KRAKEN.value ||
+                    isKraken(map, y + 1, x) || isKraken(map, y - 1, x) ||
+                    isKraken(map, y, x + 1) || isKraken(map, y, x - 1)))
+                krakenZone.set(cell);
+            if(isKraken(map, y + 1, x + 1) || isKraken(map, y + 1, x - 1) ||
+                    isKraken(map, y - 1, x + 1) || isKraken(map, y - 1, x - 1))
+                krakenSafe.set(cell);
+            if(map.getId(cell) == ObjectValues.TORTUGA.value)
+                tortuga.set(cell);
+            if(x == 0)
+                firstColumn.set(cell);
+            if(x == width - 1)
+                lastColumn.set(cell);
+        }
+        passableDead = new BitBoard(safe).or(krakenZone);
+        horizontal = new BitBoard(size);
+        shifted = new BitBoard(size);
+    }
+
+
+    /**
+     * <h3>Check if Kraken is in the cell with given coordinates</h3>
+     * @param map given map
+     * @param y coordinate on Y-axis
+     * @param x coordinate on X-axis
+     * @return {@code boolean} result flag, false for coordinates out of the map
+     */
+    private boolean isKraken(MapSnapshot map, int y, int x){
+        if(y < 0 || x < 0 || y >= height || x >= width)
+            return false;
+        char id = map.getId(y * width + x);
+        return id == ObjectValues.KRAKEN.value || id == ObjectValues.KRAKEN_AND_ROCK.value;
+    }
+
+
+    /**
+     * <h3>Get all cells that are one move away from the given cells or are the given cells</h3>
+     * Moves to the left and to the right are made once and the result is moved up and down, so eight neighbours of
+     * all cells are found by four shifts.
+     * @param cells given board
+     * @param result board for the result, it must not be the given board
+     * @return result board
+     */
+    public BitBoard neighbours(BitBoard cells, BitBoard result){
+        horizontal.copy(cells).orShift(shifted.copy(cells).andNot(lastColumn), 1)
+                .orShift(shifted.copy(cells).andNot(firstColumn), -1);
+        return result.copy(horizontal).orShift(horizontal, width).orShift(horizontal, -width);
+    }
+
+
+    /**
+     * <h3>Get all cells that are one move away from the given cells or are the given cells</h3>
+     * @param cells given board
+     * @return {@code BitBoard} new board
+     */
+    public BitBoard neighbours(BitBoard cells){
+        return neighbours(cells, new BitBoard(height * width));
+    }
+
+
+    /**
+     * <h3>Get layers of cells with the only given cell</h3>
+     * Layers are indexed by flags of the state, the layer with index 0 (no rum and Kraken is dead) is always empty.
+     * @param cell index of the cell
+     * @param flags flags of the state in the cell
+     * @return array of four boards
+     */
+    public BitBoard[] layers(int cell, int flags){
+        BitBoard[] layers = new BitBoard[4];
+        for (int i = 0; i < 4; ++i)
+            layers[i] = new BitBoard(height * width);
+        layers[flags].set(cell);
+        return layers;
+    }
+
+
+    /**
+     * <h3>Make one move from all cells of the layers</h3>
+     * Each layer is moved to the cells that can be entered with its flags, then cells where flags change are moved to
+     * other layers: Tortuga gives the rum and a cell on a diagonal from Kraken kills it if actor has the rum.
+     * @param layers boards of cells indexed by flags
+     * @param next boards for the result, they must not be the given boards
+     * @return next boards
+     */
+    public BitBoard[] step(BitBoard[] layers, BitBoard[] next){
+        neighbours(layers[NO_RUM], next[NO_RUM]).and(safe);
+        neighbours(layers[RUM], next[RUM]).and(safe);
+        neighbours(layers[RUM_KRAKEN_DEAD], next[RUM_KRAKEN_DEAD]).and(passableDead);
+        next[RUM].or(shifted.copy(next[NO_RUM]).and(tortuga));
+        next[NO_RUM].andNot(tortuga);
+        next[RUM_KRAKEN_DEAD].or(shifted.copy(next[RUM]).and(krakenSafe));
+        next[RUM].andNot(krakenSafe);
+        next[0].clear();
+        return next;
+    }
+
+
+    /**
+     * <h3>Make one move from all cells of the layers</h3>
+     * @param layers boards of cells indexed by flags
+     * @return array of new boards
+     */
+    public BitBoard[] step(BitBoard[] layers){
+        return step(layers, layers(0, 0));
+    }
+
+
+    /**
+     * <h3>Flood fill from the cell</h3>
+     * All layers are filled at once, every iteration adds cells of the next move and the fill stops when no new cells
+     * are added, so the number of iterations is the length of the longest shortest path from the cell. Boards are
+     * allocated once for the fill and reused by all iterations.
+     * @param cell index of the start cell
+     * @param flags flags of the state in the start cell
+     * @return {@code BitBoard} board of all reachable cells
+     */
+    public BitBoard reachable(int cell, int flags){
+        if((flags & 2) != 0 && krakenSafe.get(cell))
+            flags = RUM_KRAKEN_DEAD;
+        BitBoard[] reached = layers(cell, flags), frontier = layers(cell, flags), next = layers(cell, flags);
+        boolean empty = false;
+        while (!empty) {
+            BitBoard[] swap = step(frontier, next);
+            next = frontier;
+            frontier = swap;
+            empty = true;
+            for (int i = 1; i < 4; ++i) {
+                reached[i].or(frontier[i].andNot(reached[i]));
+                empty &= frontier[i].isEmpty();
+            }
+        }
+        return reached[NO_RUM].or(reached[RUM]).or(reached[RUM_KRAKEN_DEAD]);
+    }
+}
+
+
+/**
+ * <h2>Map object class that contains all the common values and methods for map objects</h2>
+ */
+class MapObject {
+    public boolean enemy = false;
+    private final GameMap map;
+    private Coordinates coordinates;
+
+    public MapObject(GameMap map){
+        this.map = map;
+    }
+    public MapObject(int y, int x, GameMap map) {
+        this.coordinates = new Coordinates(y, x);
+        this.map = map;
+    }
+
+    public char get_id(){
+        return '_';
+    }
+
+
+    /**
+     * <h2>Check if object inside of another one</h2>
+     * @param map_object another object
+     * @return result flag
+     */
+    public boolean inside(MapObject map_object){
+        return this.coordinates.equals(map_object.coordinates);
+    }
+
+
+    /**
+     * <h2>Say whether another object is placed in its danger zone</h2>
+     * @param map_object given map object
+     * @return result flag
+     */
+    public boolean in_danger_zone(MapObject map_object){
+        return inside(map_object);
+    }
+
+    public GameMap getMap() {
+        return map;
+    }
+
+    public Coordinates getCoordinates() {
+        return coordinates;
+    }
+
+    public void setCoordinates(Coordinates coordinates) {
+        this.coordinates = coordinates;
+    }
+
+
+    /**
+     * <h2>Mehod that returns perception zone specific for each object</h2>
+     * @return List
+     */
+    public List<Coordinates> get_perception_zone(){
+        return new ArrayList<>();
+    }
+
+
+    /**
+     * <h2>Check if all objects on map are placed correctly for this one</h2>
+     * @return result flag
+     */
+    public boolean validate() {
+        return true;
+    }
+}
+
+
+/**
+ * <h2>Class of a Jack Sparrow</h2>
+ * This the class of the Jack Sparrow {@code MapObject} with its own position validator. It is used in
+ * {@code GameMap} generation and initialization.
+ */
+class JackSparrow extends MapObject {
+
+    public JackSparrow(int y, int x, GameMap map) {
+        super(y, x, map);
+    }
+
+    @Override
+    public char get_id(){
+        return ObjectValues.JACK_SPARROW.value;
+    }
+
+    @Override
+    public boolean validate(){
+        for(MapObject map_object: Arrays.asList(this.getMap().getKraken(), this.getMap().getRock(),
+                this.getMap().getDeadMansChest(), this.getMap().getDavyJones()))
+            if(map_object != null && map_object.getCoordinates() != null &&
+                    map_object.inside(this)) return false;
+        return true;
+    }
+}
+
+
+/**
+ * <h2>Class of a Davy Jones</h2>
+ * This the class of the Davy Jones {@code MapObject} with its own position validator. It is used in
+ * {@code GameMap} generation and initialization. Also provides an ability to get specific perception zone.
+ */
+class DavyJones extends MapObject {
+    public DavyJones(GameMap map){
+        super(map);
+    }
+
+    public DavyJones(int y, int x, GameMap map) {
+        super(y, x, map);
+        enemy = true;
+    }
+
+    @Override
+    public char get_id(){
+        return ObjectValues.DAVY_JONES.value;
+    }
+
+    @Override
+    public boolean in_danger_zone(MapObject map_object){
+        Coordinates coordinates = map_object.getCoordinates();
+        int x_difference = Math.abs(coordinates.x - this.getCoordinates().x),
+        y_difference = Math.abs(coordinates.y - this.getCoordinates().y);
+        return x_difference <= 1 && y_difference <= 1;
+    }
+
+    @Override
+    public List<Coordinates> get_perception_zone(){
+        ArrayList<Coordinates> perception_zone = new ArrayList<>();
+        int y = this.getCoordinates().y, x = this.getCoordinates().x;
+        for(int i = -1; i < 2; ++i){
+            for(int j = -1; j < 2; ++j){
+                if(i != 0 || j != 0){
+                    int perception_x = x + i, perception_y = y + j;
+                    if(perception_x >= 0 && perception_x < getMap().getWidth() &&
+                            perception_y >= 0 && perception_y < getMap().getHeight())
+                        perception_zone.add(new Coordinates(perception_y, perception_x));
+                }
+            }
+        }
+        return perception_zone;
+    }
+
+    @Override
+    public boolean validate(){
+        for(MapObject map_object: Arrays.asList(this.getMap().getTortuga(), this.getMap().getDeadMansChest(),
+                this.getMap().getKraken(), this.getMap().getJackSparrow(), this.getMap().getRock()))
+            if(map_object != null && map_object.getCoordinates() != null && map_object.inside(this)) return false;
+        return true;
+    }
+}
+
+
+/**
+ * <h2>Class of a Kraken</h2>
+ * This the class of the Rock {@code MapObject} with its own position validator. It is used in
+ * {@code GameMap} generation and initialization. Also provides an ability to get specific perception zone.
+ */
+class Kraken extends MapObject {
+    public Kraken(GameMap map){
+        super(map);
+    }
+    public Kraken(int y, int x, GameMap map) {
+        super(y, x, map);
+        enemy = true;
+    }
+
+    @Override
+    public char get_id(){
+        return ObjectValues.KRAKEN.value;
+    }
+
+
+    @Override
+    public List<Coordinates> get_perception_zone(){
+        ArrayList<Coordinates> perception_zone = new ArrayList<>();
+        int y = this.getCoordinates().y, x = this.getCoordinates().x;
+        for(int i = -1; i < 2; ++i){
+            for(int j = -1; j < 2; ++j){
+                if((i != 0 || j != 0) && (Math.abs(i) + Math.abs(j)) < 2){
+                    int perception_x = x + i, perception_y = y + j;
+                    if(perception_x >= 0 && perception_x < getMap().getWidth() &&
+                            perception_y >= 0 && perception_y < getMap().getHeight())
+                        perception_zone.add(new Coordinates(perception_y, perception_x));
+                }
+            }
+        }
+        return perception_zone;
+    }
+    @Override
+    public boolean in_danger_zone(MapObject map_object){
+        Coordinates coordinates = map_object.getCoordinates();
+        return Math.abs(coordinates.x - this.getCoordinates().x) + Math.abs(coordinates.y - this.getCoordinates().y) <= 1;
+    }
+
+    @Override
+    public boolean validate(){
+        for(MapObject map_object: Arrays.asList(this.getMap().getTortuga(), this.getMap().getDeadMansChest(),
+                this.getMap().getDavyJones(), this.getMap().getJackSparrow()))
+            if(map_object != null && map_object.getCoordinates() != null &&
+                    map_object.inside(this)) return false;
+        return true;
+    }
+}
+
+
+/**
+ * <h2>Class of a Rock</h2>
+ * This the class of the Rock {@code MapObject} with its own position validator. It is used in
+ * {@code GameMap} generation and initialization.
+ */
+class Rock extends MapObject {
+
+    public Rock(GameMap map){
+        super(map);
+    }
+    public Rock(int y, int x, GameMap map) {
+        super(y, x, map);
+        enemy = true;
+    }
+
+    @Override
+    public char get_id(){
+        return ObjectValues.ROCK.value;
+    }
+
+    @Override
+    public boolean validate(){
+        for(MapObject map_object: Arrays.asList(this.getMap().getTortuga(), this.getMap().getDeadMansChest(),
+                this.getMap().getDavyJones(), this.getMap().getJackSparrow()))
+            if(map_object != null && map_object.getCoordinates() != null &&
+                    map_object.inside(this))
+                return false;
+        return true;
+    }
+}
+
+
+/**
+ * <h2>Class of a Tortuga</h2>
+ * This the class of the Dead Man's chest {@code MapObject} with its own position validator. It is used in
+ * {@code GameMap} generation and initialization.
+ */
+class DeadMansChest extends MapObject {
+    public DeadMansChest(GameMap map){
+        super(map);
+    }
+
+    public DeadMansChest(int y, int x, GameMap map) {
+        super(y, x, map);
+    }
+
+    @Override
+    public char get_id(){
+        return ObjectValues.DEAD_MANS_CHEST.value;
+    }
+
+    @Override
+    public boolean validate(){
+        if(this.getMap().getJackSparrow() != null && this.getMap().getRock() != null &&
+                this.getMap().getRock().getCoordinates() != null &&
+                this.getMap().getJackSparrow().getCoordinates() != null &&
+                this.getMap().getJackSparrow().inside(this) ||
+                this.getMap().getRock().inside(this)
+        )
+            return false;
+        for(MapObject map_object: Arrays.asList(this.getMap().getKraken(), this.getMap().getDavyJones()))
+            if(map_object != null && map_object.getCoordinates() != null &&
+                    map_object.in_danger_zone(this))
+                return false;
+        return true;
+    }
+}
+
+
+/**
+ * <h2>Class of a Tortuga</h2>
+ * This the class of the Tortuga {@code MapObject} with its own position validator. It is used in
+ * {@code GameMap} generation and initialization.
+ */
+class Tortuga extends MapObject {
+    public Tortuga(GameMap map){
+        super(map);
+    }
+    public Tortuga(int y, int x, GameMap map) {
+        super(y, x, map);
+    }
+
+    @Override
+    public char get_id(){
+        return ObjectValues.TORTUGA.value;
+    }
+
+    @Override
+    public boolean validate(){
+        for(MapObject map_object: Arrays.asList(this.getMap().getDeadMansChest(), this.getMap().getRock()))
+            if(map_object != null && map_object.getCoordinates() != null &&
+                    map_object.inside(this)) {
+                return false;
+            }
+        for(MapObject map_object: Arrays.asList(this.getMap().getKraken(), this.getMap().getDavyJones()))
+            if(map_object != null && map_object.getCoordinates() != null &&
+                    map_object.in_danger_zone(this)) return false;
+        return true;
+    }
+}
+
+
+/**
+ * <h2>Enumeration of targets for Compass</h2>
+ * This is the enumeration that consists of all possible compass targets.
+ */
+enum CompassTarget {
+    TORTUGA,
+    DEAD_MANS_CHEST
+}
+
+
+/**
+ * <h2>Class of a compass</h2>
+ * This the class that provides the main agent an ability to find coordinates of Tortuga and Dead Man's Chest.
+ * To interact with main method {@code show} you need to provide a target in {@code CompassTarget} form.
+ */
+class Compass{
+
+    private final MapSnapshot gameMap;
+    public Compass(MapSnapshot gameMap){
+        this.gameMap = gameMap;
+    }
+    public Coordinates show(CompassTarget compassTarget){
+        return gameMap.find(compassTarget);
+    }
+}
+
+
+/**
+ * <h2>Class of a main actor</h2>
+ * This the class that provides the main logic for an agent. Here are implemented different methods, which provides
+ * abstraction over our technical assignment. Actor can find Tortuga or Dead Man's Chest using special methods of
+ * {@code Compass}. It also allows main agent to explore map using his {@code SpyGlass} and save all this data on
+ * his own map.
+ * <br/>
+ * Actor is the context of one search: what he has seen and values of cells used by algorithms are stored in his own
+ * arrays, and the map is only read. So one map can be used by several actors in different threads at the same time,
+ * and the map does not have to be rebuilt between searches.
+ */
+class Actor{
+    private final Compass compass;
+    private final SpyGlass spyGlass;
+    private final MapSnapshot environment;
+    private Coordinates coordinates;
+
+    //flags of cells that actor has already seen, indexed in the same way as the cells of the map
+    private final boolean[] mapInMemory;
+    boolean[] alreadyExplored;
+    private final int height, width;
+    //values of the cells in memory that are used by algorithms, parent equal to -1 means absence of parent
+    final int[] currentG, currentF, parents;
+    final boolean[] visited, haveRum, krakenAlive;
+
+    public Actor(GameMap environment, Coordinates coordinates, SpyGlass spyGlass){
+        this(environment.snapshot(), coordinates, spyGlass);
+    }
+
+    public Actor(MapSnapshot environment, Coordinates coordinates, SpyGlass spyGlass){
+        this.coordinates = coordinates;
+        this.compass = new Compass(environment);
+        this.spyGlass = spyGlass;
+        this.environment = environment;
+        this.height = environment.getHeight();
+        this.width = environment.getWidth();
+        int size = this.height * this.width;
+        this.mapInMemory = new boolean[size];
+        this.alreadyExplored = new boolean[size];
+        this.currentG = new int[size];
+        this.currentF = new int[size];
+        this.parents = new int[size];
+        this.visited = new boolean[size];
+        this.haveRum = new boolean[size];
+        this.krakenAlive = new boolean[size];
+        Arrays.fill(this.currentG, Integer.MAX_VALUE);
+        Arrays.fill(this.currentF, Integer.MAX_VALUE);
+        Arrays.fill(this.parents, -1);
+        Arrays.fill(this.krakenAlive, true);
+        this.mapInMemory[index(findTortuga())] = true;
+    }
+
+    /**
+     * <h3>Copy constructor</h3>
+     * The copy remembers the same cells as the given actor, but has its own memory and fresh values for algorithms, so
+     * the copies can be used by different threads at the same time.
+     * @param other actor to copy
+     */
+    public Actor(Actor other){
+        this(other.environment, other.coordinates, other.spyGlass);
+        System.arraycopy(other.mapInMemory, 0, this.mapInMemory, 0, this.mapInMemory.length);
+        System.arraycopy(other.alreadyExplored, 0, this.alreadyExplored, 0, this.alreadyExplored.length);
+    }
+
+    public void explore(){
+        explore(index(this.coordinates));
+    }
+
+    public void explore(int cell){
+        if(!alreadyExplored[cell]) {
+            spyGlass.explore(cell, this.mapInMemory);
+            alreadyExplored[cell] = true;
+        }
+    }
+
+    public SpyGlass getSpyGlass() {
+        return spyGlass;
+    }
+
+    public boolean[] getMapInMemory() {
+        return mapInMemory;
+    }
+
+    public boolean isKnown(int cell) {
+        return mapInMemory[cell];
+    }
+
+    public MapSnapshot getEnvironment() {
+        return environment;
+    }
+
+    public char getId(int cell) {
+        return environment.getId(cell);
+    }
+
+    public int howDanger(int cell) {
+        return environment.howDanger(cell);
+    }
+
+    public int index(Coordinates coordinates) {
+        return coordinates.toIndex(this.width);
+    }
+
+    public Coordinates toCoordinates(int cell) {
+        return Coordinates.fromIndex(cell, this.width);
+    }
+
+    public Coordinates getCoordinates() {
+        return coordinates;
+    }
+
+    public void setCoordinates(Coordinates coordinates) {
+        this.coordinates = coordinates;
+    }
 
-    public MapObject(GameMap map){
-        this.map = map;
+    public int getHeight() {
+        return height;
     }
-    public MapObject(int y, int x, GameMap map) {
-        this.coordinates = new Coordinates(y, x);
+
+    public int getWidth() {
+        return width;
+    }
+
+
+    public Coordinates findTortuga(){
+        return compass.show(CompassTarget.TORTUGA);
+    }
+
+    public Coordinates findDeadMansChest(){
+        return compass.show(CompassTarget.DEAD_MANS_CHEST);
+    }
+}
+
+
+/**
+ * <h2>Abstract class SpyGlass</h2>
+ * This the class that provides the logic of spyglass used by Jack Sparrow. Here can be found common methods for all
+ * spyglasses, common variables and etc. The main method for this class is explore that provides an ability to explore
+ * game map and save the results to given map.
+ */
+abstract class SpyGlass{
+    final MapSnapshot map;
+    final int[][] exploreArea;
+    //explored cells are at most this far from the actor
+    private final int radius;
+
+    public SpyGlass(MapSnapshot map, int[][] exploreArea){
         this.map = map;
+        this.exploreArea = exploreArea;
+        int radius = 0;
+        for (int[] area : exploreArea)
+            radius = Math.max(radius, Math.max(Math.abs(area[0]), Math.abs(area[1])));
+        this.radius = radius;
     }
 
-    public char get_id(){
-        return '_';
+    public int getRadius() {
+        return radius;
+    }
+
+    public void explore(Coordinates coordinates, boolean[] explorationMap){
+        explore(map.index(coordinates), explorationMap);
+    }
+
+    public void explore(int cell, boolean[] explorationMap){
+        int width = map.getWidth(), y = cell / width, x = cell % width;
+        for (int[] area : exploreArea)
+            if(0 <= y + area[0] && y + area[0] < map.getHeight() && 0 <= x + area[1] && x + area[1] < width)
+                explorationMap[cell + area[0] * width + area[1]] = true;
+    }
+}
+
+
+/**
+ * <h2>Usual spyglass class</h2>
+ * This the class for the usual spyglass. It has specific explore area in the constructor, so it's explore method
+ * works specifically. The explore area is smaller than the explore area of super spyglass.
+ */
+class UsualSpyGlass extends SpyGlass{
+
+    public UsualSpyGlass(GameMap map) {
+        this(map.snapshot());
+    }
+
+    public UsualSpyGlass(MapSnapshot map) {
+        super(map, new int[][] {{1, 1}, {1, 0}, {0, 1}, {1, -1}, {-1, 1}, {0, -1}, {-1, 0}, {-1, -1}});
+    }
+}
+
+
+/**
+ * <h2>Super spyglass class</h2>
+ * This the class for the super spyglass. It has specific explore area in the constructor, so it's explore method
+ * works specifically.
+ */
+class SuperSpyGlass extends SpyGlass{
+
+    public SuperSpyGlass(GameMap map) {
+        this(map.snapshot());
+    }
+
+    public SuperSpyGlass(MapSnapshot map) {
+        super(map, new int[][] {{2, 0}, {-2, 0}, {0, 2}, {0, -2}, {1, 1}, {1, 0},
+                {0, 1}, {1, -1}, {-1, 1}, {0, -1}, {-1, 0}, {-1, -1}});
     }
+}
+
+
+/**
+ * <h2>Latency histogram class</h2>
+ * Histogram of non-negative times in nanoseconds with a fixed number of logarithmic buckets. Values less than
+ * {@code SUB_BUCKETS} have their own buckets, and every range {@code [2^k, 2^(k+1))} above them is divided into
+ * {@code SUB_BUCKETS} buckets of equal width, so a value is restored from its bucket with relative error less than
+ * {@code 1 / (2 * SUB_BUCKETS)}. Count, mean and sum of squared deviations are kept exactly, as are the least and the
+ * greatest values. Memory does not depend on the number of recorded values, and two histograms are merged by adding
+ * their buckets.
+ */
+class LatencyHistogram{
+    private static final int SUB_BUCKET_BITS = 7, SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    //numbers of values in the buckets
+    private final long[] counts = new long[SUB_BUCKETS * (Long.SIZE - SUB_BUCKET_BITS)];
+    private long count, min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+    //mean and sum of squared deviations from the mean
+    private double mean, squares;
 
 
     /**
-     * <h2>Check if object inside of another one</h2>
-     * @param map_object another object
-     * @return result flag
+     * <h3>Method to find the bucket of the value</h3>
+     * @param value non-negative value
+     * @return index of the bucket
      */
-    public boolean inside(MapObject map_object){
-        return this.coordinates.equals(map_object.coordinates);
+    private static int bucket(long value){
+        if(value < SUB_BUCKETS)
+            return (int) value;
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS * (shift + 1) + (int) (value >>> shift) - SUB_BUCKETS;
     }
 
 
     /**
-     * <h2>Say whether another object is placed in its danger zone</h2>
-     * @param map_object given map object
-     * @return result flag
+     * <h3>Method to find the middle of the bucket</h3>
+     * @param bucket index of the bucket
+     * @return value that represents all values of the bucket
      */
-    public boolean in_danger_zone(MapObject map_object){
-        return inside(map_object);
+    private static long middle(int bucket){
+        if(bucket < SUB_BUCKETS)
+            return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long low = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return low + ((1L << shift) - 1) / 2;
     }
 
-    public GameMap getMap() {
-        return map;
+
+    /**
+     * <h3>Method to record the value</h3>
+     * @param value non-negative value
+     */
+    public void record(long value){
+        ++counts[bucket(value)];
+        ++count;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        double delta = value - mean;
+        mean += delta / count;
+        squares += delta * (value - mean);
     }
 
-    public Coordinates getCoordinates() {
-        return coordinates;
+
+    /**
+     * <h3>Method to add values of another histogram to this one</h3>
+     * @param another another histogram
+     */
+    public void merge(LatencyHistogram another){
+        if(another.count == 0)
+            return;
+        for (int i = 0; i < counts.length; ++i)
+            counts[i] += another.counts[i];
+        long total = count + another.count;
+        double delta = another.mean - mean;
+        squares += another.squares + delta * delta * count * another.count / total;
+        mean += delta * another.count / total;
+        count = total;
+        min = Math.min(min, another.min);
+        max = Math.max(max, another.max);
     }
 
-    public void setCoordinates(Coordinates coordinates) {
-        this.coordinates = coordinates;
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public long getMax() {
+        return max;
     }
 
 
     /**
-     * <h2>Mehod that returns perception zone specific for each object</h2>
-     * @return List
+     * <h3>Method to calculate standard deviation</h3>
+     * @return sample standard deviation
      */
-    public List<Coordinates> get_perception_zone(){
-        return new ArrayList<>();
+    public double getStandardDeviation(){
+        return count > 1 ? Math.sqrt(squares / (count - 1)) : 0;
     }
 
 
     /**
-     * <h2>Check if all objects on map are placed correctly for this one</h2>
-     * @return result flag
+     * <h3>Method to find the value of given rank</h3>
+     * @param rank rank of the value from 1 to the number of values
+     * @return middle of the bucket of the value, but not beyond the least and the greatest values
      */
-    public boolean validate() {
-        return true;
+    public long valueAtRank(long rank){
+        if(rank >= count)
+            return max;
+        long seen = 0;
+        for (int i = 0; i < counts.length; ++i) {
+            seen += counts[i];
+            if(seen >= rank)
+                return Math.max(min, Math.min(max, middle(i)));
+        }
+        return max;
+    }
+
+
+    /**
+     * <h3>Method to find percentile by the nearest rank</h3>
+     * @param percent percent of values that are not greater than the result
+     * @return value of the percentile
+     */
+    public long percentile(double percent){
+        return valueAtRank(Math.max(1, (long) Math.ceil(percent / 100 * count)));
+    }
+
+
+    /**
+     * <h3>Method to find median</h3>
+     * For even number of values it is the mean of the two middle values.
+     * @return value of the median
+     */
+    public double median(){
+        if(count % 2 == 0)
+            return (valueAtRank(count / 2) + valueAtRank(count / 2 + 1)) / 2.0;
+        return valueAtRank(count / 2 + 1);
+    }
+
+
+    /**
+     * <h3>Method to count values greater than given one</h3>
+     * Values of the bucket that contains given value are counted if the middle of the bucket is greater than it.
+     * @param value given value
+     * @return number of values
+     */
+    public long countAbove(long value){
+        long result = 0;
+        for (int i = counts.length - 1; i >= 0 && middle(i) > value; --i)
+            result += counts[i];
+        return result;
+    }
+
+
+    /**
+     * <h3>Method to find mode</h3>
+     * @return middle of the bucket with the greatest number of values
+     */
+    public long mode(){
+        int best = 0;
+        for (int i = 1; i < counts.length; ++i)
+            if(counts[i] > counts[best])
+                best = i;
+        return Math.max(min, Math.min(max, middle(best)));
     }
 }
 
 
 /**
- * <h2>Class of a Jack Sparrow</h2>
- * This the class of the Jack Sparrow {@code MapObject} with its own position validator. It is used in
- * {@code GameMap} generation and initialization.
+ * <h2>Scenario corpus class</h2>
+ * File of maps generated from one seed together with results expected for them, so the same workload can be replayed
+ * by many runs. The file starts with the header: magic number, version, height and width of maps, number of maps and
+ * the seed. Then each map takes a record of {@code RECORD_SIZE} bytes: coordinates Y and X of Jack Sparrow, Davy Jones,
+ * Kraken, Rock, Dead Man's Chest and Tortuga in the order of {@code GameMap.initialize}, one unsigned byte each, so
+ * sides of maps are at most 255 cells, then length of the expected path as {@code short} ({@code -1} for lose),
+ * whether Kraken is alive at the end of the path and one reserved byte. Records have fixed size, so the reader maps the file into memory and reads the record of any map by
+ * its index without parsing of the file. One mapping is limited by 2 GB, that is about 130 million maps.
  */
-class JackSparrow extends MapObject {
+class ScenarioCorpus{
+    private static final int MAGIC = 0x4B4B5343, HEADER_SIZE = 20, RECORD_SIZE = 16;
+    private static final short VERSION = 1;
+    private final MappedByteBuffer buffer;
+    private final int height, width, size;
+    private final long seed;
 
-    public JackSparrow(int y, int x, GameMap map) {
-        super(y, x, map);
+
+    /**
+     * <h3>Constructor for the reader of the corpus file</h3>
+     * @param path path to the file
+     * @throws IOException if the file can not be read or it is not a corpus
+     */
+    ScenarioCorpus(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if(buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION)
+            throw new IOException("Not a scenario corpus: " + path);
+        height = buffer.get(6) & 0xFF;
+        width = buffer.get(7) & 0xFF;
+        size = buffer.getInt(8);
+        seed = buffer.getLong(12);
+        if(buffer.capacity() != HEADER_SIZE + (long) size * RECORD_SIZE)
+            throw new IOException("Truncated scenario corpus: " + path);
     }
 
-    @Override
-    public char get_id(){
-        return ObjectValues.JACK_SPARROW.value;
+
+    /**
+     * <h3>Method to generate maps and write them with their results to the file</h3>
+     * The map of index {@code i} is generated by {@code GameMap.generate} with the generator seeded by the
+     * {@code i}-th number of {@code SplittableRandom} with given seed, and its results are the results of given
+     * algorithm executed from the point (0, 0) to Dead Man's Chest. The corpus is written to a temporary file next to
+     * the given one, which replaces it only when all maps are written, so a failed run leaves no partial corpus.
+     * @param path path to the file
+     * @param seed seed of the corpus
+     * @param numberOfMaps number of maps
+     * @param height height of maps
+     * @param width width of maps
+     * @param algorithmValue which algorithm gives expected results
+     * @throws IOException if the file can not be written
+     * @throws IllegalArgumentException if sides of maps are less than {@code GameMap.MIN_SIDE} or larger than 255
+     * @throws IllegalStateException if some map can not be generated
+     */
+    public static void write(Path path, long seed, int numberOfMaps, int height, int width,
+                             AlgorithmValues algorithmValue) throws IOException {
+        if(height < GameMap.MIN_SIDE || height > 0xFF || width < GameMap.MIN_SIDE || width > 0xFF)
+            throw new IllegalArgumentException("Sides of maps in the corpus should be from " + GameMap.MIN_SIDE +
+                    " to 255");
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            writeRecords(temporary, seed, numberOfMaps, height, width, algorithmValue);
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException exception) {
+            Files.deleteIfExists(temporary);
+            throw exception;
+        }
     }
 
-    @Override
-    public boolean validate(){
-        for(MapObject map_object: Arrays.asList(this.getMap().getKraken(), this.getMap().getRock(),
-                this.getMap().getDeadMansChest(), this.getMap().getDavyJones()))
-            if(map_object != null && map_object.getCoordinates() != null &&
-                    map_object.inside(this)) return false;
-        return true;
+
+    /**
+     * <h3>Method to write the header and records of the corpus to the file</h3>
+     * @param path path to the file
+     * @param seed seed of the corpus
+     * @param numberOfMaps number of maps
+     * @param height height of maps
+     * @param width width of maps
+     * @param algorithmValue which algorithm gives expected results
+     * @throws IOException if the file can not be written
+     */
+    private static void writeRecords(Path path, long seed, int numberOfMaps, int height, int width,
+                                     AlgorithmValues algorithmValue) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        try (DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+                path.toFile())))) {
+            stream.writeInt(MAGIC);
+            stream.writeShort(VERSION);
+            stream.writeByte(height);
+            stream.writeByte(width);
+            stream.writeInt(numberOfMaps);
+            stream.writeLong(seed);
+            for (int i = 0; i < numberOfMaps; ++i) {
+                GameMap gameMap = new GameMap(height, width);
+                if(!gameMap.generate(new Random(random.nextLong())))
+                    throw new IllegalStateException("Map " + i + " of the scenario corpus can not be generated");
+                for (MapObject mapObject: Arrays.asList(gameMap.getJackSparrow(), gameMap.getDavyJones(),
+                        gameMap.getKraken(), gameMap.getRock(), gameMap.getDeadMansChest(), gameMap.getTortuga())) {
+                    stream.writeByte(mapObject.getCoordinates().y);
+                    stream.writeByte(mapObject.getCoordinates().x);
+                }
+                Actor actor = new Actor(gameMap, gameMap.getJackSparrow().getCoordinates(),
+                        algorithmValue.getSpyGlass(gameMap));
+                Algorithm algorithm = algorithmValue.getAlgorithm(actor);
+                List<Coordinates> result = algorithm.execute(new Coordinates(0, 0), actor.findDeadMansChest());
+                stream.writeShort(result.size() - 1);
+                stream.writeByte(algorithm.isKrakenAlive ? 1 : 0);
+                stream.writeByte(0);
+            }
+        }
+    }
+
+
+    public int size() {
+        return size;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+
+    /**
+     * <h3>Method to place the object at the coordinates of the record</h3>
+     * @param mapObject object to place
+     * @param offset offset of its coordinates in the file
+     * @return the same object
+     * @param <T> type of the object
+     */
+    private <T extends MapObject> T place(T mapObject, int offset){
+        mapObject.setCoordinates(new Coordinates(buffer.get(offset) & 0xFF, buffer.get(offset + 1) & 0xFF));
+        return mapObject;
+    }
+
+
+    /**
+     * <h3>Method to restore the map of given index</h3>
+     * Objects are created by the same constructors as in {@code GameMap.generate}, so the restored map is the same as
+     * the generated one.
+     * @param index index of the map
+     * @return new map with the objects of the record
+     * @throws IllegalStateException if objects of the record do not form a valid map
+     */
+    public GameMap load(int index){
+        int offset = HEADER_SIZE + index * RECORD_SIZE;
+        GameMap gameMap = new GameMap(height, width);
+        if(!gameMap.initialize(place(new JackSparrow(0, 0, gameMap), offset),
+                place(new DavyJones(gameMap), offset + 2), place(new Kraken(gameMap), offset + 4),
+                place(new Rock(gameMap), offset + 6), place(new DeadMansChest(gameMap), offset + 8),
+                place(new Tortuga(gameMap), offset + 10)))
+            throw new IllegalStateException("Invalid map in record " + index + " of the scenario corpus");
+        return gameMap;
+    }
+
+
+    /**
+     * <h3>Method to get expected length of the path on the map of given index</h3>
+     * @param index index of the map
+     * @return number of moves, or {@code -1} for lose
+     */
+    public int expectedLength(int index){
+        return buffer.getShort(HEADER_SIZE + index * RECORD_SIZE + 12);
+    }
+
+
+    /**
+     * <h3>Method to get whether Kraken is expected to be alive on the map of given index</h3>
+     * @param index index of the map
+     * @return expected flag of Kraken
+     */
+    public boolean expectedKrakenAlive(int index){
+        return (buffer.get(HEADER_SIZE + index * RECORD_SIZE + 14) & 0xFF) != 0;
     }
 }
 
 
 /**
- * <h2>Class of a Davy Jones</h2>
- * This the class of the Davy Jones {@code MapObject} with its own position validator. It is used in
- * {@code GameMap} generation and initialization. Also provides an ability to get specific perception zone.
+ * <h2>Statistical tests class</h2>
+ * This is the class for getting the information about statistical tests. The size of sample is provided in the
+ * constructor and the type of an algorithm is provided for execution method({@code execute}). Trials are spread over
+ * the threads of {@code ForkJoinPool}: the range of trials is split in halves until it is small enough, and each half
+ * gets its own generator split from the generator of the whole range. The shape of splitting depends only on the
+ * number of trials, so every trial gets the same seed of the map for the same seed of the test, whatever the number of
+ * threads is. Times and counters of each range are merged when its halves are joined, and times are kept in
+ * {@code LatencyHistogram}, so memory does not grow with the number of trials.
+ * <br/>
+ * Measured trials are preceded by warmup, while JIT compiles the algorithm. Warmup trials are executed in batches of
+ * {@code WARMUP_BATCH} on maps from their own generator, and it stops when medians of the last {@code WARMUP_WINDOW}
+ * batches differ from their mean by at most {@code WARMUP_TOLERANCE} of it, or after {@code MAX_WARMUP_BATCHES}
+ * batches. Times of warmup are reported separately as cold start. Measured trials slower than the upper quartile by
+ * more than three interquartile ranges are counted as outliers.
+ * <br/>
+ * With {@code ScenarioCorpus} the measured trials replay its maps instead of generating new ones, and trials whose
+ * results differ from the expected ones are counted as mismatches.
  */
-class DavyJones extends MapObject {
-    public DavyJones(GameMap map){
-        super(map);
+class StatisticalTest{
+    //largest number of trials that are executed by one task without splitting
+    private static final int TRIALS_PER_TASK = 64;
+    //size of the batch of warmup trials, number of the last batches that should agree and the most number of batches
+    private static final int WARMUP_BATCH = 256, WARMUP_WINDOW = 3, MAX_WARMUP_BATCHES = 40;
+    //largest relative difference of medians of batches in steady state
+    private static final double WARMUP_TOLERANCE = 0.1;
+    private final int numberOfTests;
+    private final long seed;
+    private final ForkJoinPool pool;
+    private final ScenarioCorpus corpus;
+
+    StatisticalTest(int numberOfTests) {
+        this(numberOfTests, new Random().nextLong(), ForkJoinPool.commonPool());
     }
 
-    public DavyJones(int y, int x, GameMap map) {
-        super(y, x, map);
-        enemy = true;
+    StatisticalTest(int numberOfTests, long seed, ForkJoinPool pool) {
+        this.numberOfTests = numberOfTests;
+        this.seed = seed;
+        this.pool = pool;
+        this.corpus = null;
     }
 
-    @Override
-    public char get_id(){
-        return ObjectValues.DAVY_JONES.value;
+    StatisticalTest(ScenarioCorpus corpus, ForkJoinPool pool) {
+        this.numberOfTests = corpus.size();
+        this.seed = corpus.getSeed();
+        this.pool = pool;
+        this.corpus = corpus;
     }
 
-    @Override
-    public boolean in_danger_zone(MapObject map_object){
-        Coordinates coordinates = map_object.getCoordinates();
-        int x_difference = Math.abs(coordinates.x - this.getCoordinates().x),
-        y_difference = Math.abs(coordinates.y - this.getCoordinates().y);
-        return x_difference <= 1 && y_difference <= 1;
+
+    /**
+     * <h2>Method to check whether the last batches of warmup reached steady state</h2>
+     * @param medians medians of times of the batches
+     * @param batches number of executed batches
+     * @return true if medians of the last {@code WARMUP_WINDOW} batches are close to their mean
+     */
+    private static boolean isSteady(double[] medians, int batches){
+        if(batches < WARMUP_WINDOW)
+            return false;
+        double mean = 0;
+        for (int i = batches - WARMUP_WINDOW; i < batches; ++i)
+            mean += medians[i] / WARMUP_WINDOW;
+        for (int i = batches - WARMUP_WINDOW; i < batches; ++i)
+            if(Math.abs(medians[i] - mean) > WARMUP_TOLERANCE * mean)
+                return false;
+        return true;
     }
 
-    @Override
-    public List<Coordinates> get_perception_zone(){
-        ArrayList<Coordinates> perception_zone = new ArrayList<>();
-        int y = this.getCoordinates().y, x = this.getCoordinates().x;
-        for(int i = -1; i < 2; ++i){
-            for(int j = -1; j < 2; ++j){
-                if(i != 0 || j != 0){
-                    int perception_x = x + i, perception_y = y + j;
-                    if(perception_x >= 0 && perception_x <= 8 && perception_y >= 0 && perception_y <= 8)
-                        perception_zone.add(new Coordinates(perception_y, perception_x));
-                }
+
+    /**
+     * <h2>Task that executes a range of trials</h2>
+     */
+    private class TrialTask extends RecursiveAction{
+        private static final long serialVersionUID = 1L;
+        private final AlgorithmValues algorithmValue;
+        private final int from, to;
+        private final SplittableRandom random;
+        private final boolean replay;
+        //times and counters of the range
+        private LatencyHistogram times;
+        private long expandedNodes;
+        private int numberOfWins, numberOfLoses, numberOfMismatches;
+
+
+        /**
+         * <h3>Constructor for a task of the range of trials</h3>
+         * @param algorithmValue which algorithm to execute
+         * @param from index of the first trial
+         * @param to index after the last trial
+         * @param random generator of seeds of maps for the range
+         * @param replay whether maps are taken from the corpus
+         */
+        TrialTask(AlgorithmValues algorithmValue, int from, int to, SplittableRandom random, boolean replay) {
+            this.algorithmValue = algorithmValue;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+            this.replay = replay;
+        }
+
+
+        /**
+         * <h3>Method to execute one trial</h3>
+         * @param trial index of the trial
+         */
+        private void trial(int trial){
+            GameMap gameMap;
+            if(replay)
+                gameMap = corpus.load(trial);
+            else {
+                //warmup of the replay is made on maps of the same size as the maps of the corpus
+                gameMap = corpus == null ? new GameMap() : new GameMap(corpus.getHeight(), corpus.getWidth());
+                gameMap.generate(new Random(random.nextLong()));
             }
+            Actor actor = new Actor(gameMap, gameMap.getJackSparrow().getCoordinates(),
+                    algorithmValue.getSpyGlass(gameMap));
+            Algorithm algorithm = algorithmValue.getAlgorithm(actor);
+            long start = System.nanoTime();
+            List<Coordinates> result = algorithm.execute(new Coordinates(0, 0), actor.findDeadMansChest());
+            times.record(System.nanoTime() - start);
+            expandedNodes += algorithm.expandedNodes;
+            if(result.isEmpty())
+                ++numberOfLoses;
+            else
+                ++numberOfWins;
+            if(replay && (result.size() - 1 != corpus.expectedLength(trial) ||
+                    !result.isEmpty() && algorithm.isKrakenAlive != corpus.expectedKrakenAlive(trial)))
+                ++numberOfMismatches;
+        }
+
+
+        @Override
+        protected void compute() {
+            if(to - from <= TRIALS_PER_TASK) {
+                times = new LatencyHistogram();
+                for (int i = from; i < to; ++i)
+                    trial(i);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            TrialTask left = new TrialTask(algorithmValue, from, middle, random.split(), replay),
+                    right = new TrialTask(algorithmValue, middle, to, random, replay);
+            invokeAll(left, right);
+            times = left.times;
+            times.merge(right.times);
+            expandedNodes = left.expandedNodes + right.expandedNodes;
+            numberOfWins = left.numberOfWins + right.numberOfWins;
+            numberOfLoses = left.numberOfLoses + right.numberOfLoses;
+            numberOfMismatches = left.numberOfMismatches + right.numberOfMismatches;
         }
-        return perception_zone;
     }
 
-    @Override
-    public boolean validate(){
-        for(MapObject map_object: Arrays.asList(this.getMap().getTortuga(), this.getMap().getDeadMansChest(),
-                this.getMap().getKraken(), this.getMap().getJackSparrow(), this.getMap().getRock()))
-            if(map_object != null && map_object.getCoordinates() != null && map_object.inside(this)) return false;
-        return true;
+
+    /**
+     * <h2>Method to execute given number of tests and print results to given stream</h2>
+     * @param printStream given stram
+     * @param algorithmValue which algorithm to execute
+     */
+    public void execute(PrintStream printStream, AlgorithmValues algorithmValue){
+        SplittableRandom random = new SplittableRandom(this.seed), warmupRandom = random.split();
+        LatencyHistogram coldTimes = new LatencyHistogram();
+        double[] medians = new double[MAX_WARMUP_BATCHES];
+        int batches = 0;
+        boolean steady = false;
+        while (!steady && batches < MAX_WARMUP_BATCHES) {
+            TrialTask batch = new TrialTask(algorithmValue, 0, WARMUP_BATCH, warmupRandom.split(), false);
+            pool.invoke(batch);
+            coldTimes.merge(batch.times);
+            medians[batches++] = batch.times.median();
+            steady = isSteady(medians, batches);
+        }
+        TrialTask task = new TrialTask(algorithmValue, 0, this.numberOfTests, random, corpus != null);
+        pool.invoke(task);
+        LatencyHistogram times = task.times;
+        long upperQuartile = times.percentile(75), fence = upperQuartile + 3 * (upperQuartile - times.percentile(25));
+        long outliers = times.countAbove(fence);
+        printStream.println();
+        printStream.println(algorithmValue.title + " results:");
+        printStream.printf("""
+                        \tSeed: %d
+                        \tWarmup: %d trials, steady state %s
+                        \tCold start mean: %f ms
+                        \tCold start median: %f ms
+                        \tCold start max: %f ms
+                        \tMean: %f ms
+                        \tMode: %f ms
+                        \tMedian: %f ms
+                        \t90th percentile: %f ms
+                        \t99th percentile: %f ms
+                        \t99.9th percentile: %f ms
+                        \tMax: %f ms
+                        \tStandard deviation: %f ms
+                        \tOutliers above %f ms: %d (%.2f%%)
+                        \tMean number of expanded nodes: %.2f
+                        \tNumber of wins: %d
+                        \tNumber of loses: %d
+                        \tPercent of wins: %.2f%%
+                        \tPercent of loses: %.2f%%
+                        """,
+                this.seed, coldTimes.getCount(), steady ? "reached" : "not reached",
+                coldTimes.getMean() / 1_000_000, coldTimes.median() / 1_000_000, coldTimes.getMax() / 1_000_000.0,
+                times.getMean() / 1_000_000, times.mode() / 1_000_000.0, times.median() / 1_000_000,
+                times.percentile(90) / 1_000_000.0, times.percentile(99) / 1_000_000.0,
+                times.percentile(99.9) / 1_000_000.0, times.getMax() / 1_000_000.0,
+                times.getStandardDeviation() / 1_000_000, fence / 1_000_000.0, outliers,
+                outliers / (double) Math.max(1, this.numberOfTests) * 100, task.expandedNodes / (double) this.numberOfTests,
+                task.numberOfWins, task.numberOfLoses, task.numberOfWins / (double) this.numberOfTests * 100,
+                task.numberOfLoses / (double) this.numberOfTests * 100);
+        if(corpus != null)
+            printStream.printf("\tNumber of mismatches with the corpus: %d%n", task.numberOfMismatches);
     }
 }
 
 
 /**
- * <h2>Class of a Kraken</h2>
- * This the class of the Rock {@code MapObject} with its own position validator. It is used in
- * {@code GameMap} generation and initialization. Also provides an ability to get specific perception zone.
+ * <h2>Scaling tests class</h2>
+ * This is the class for getting the information about how time and memory used by an algorithm grow with the size of
+ * the map. For each given size it generates {@code numberOfTests} square maps and measures mean execution time, mean
+ * memory allocated for the map with the actor and mean memory allocated by the algorithm execution.
  */
-class Kraken extends MapObject {
-    public Kraken(GameMap map){
-        super(map);
+class ScalingTest{
+    private final int numberOfTests;
+    private final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    ScalingTest(int numberOfTests) {
+        this.numberOfTests = numberOfTests;
     }
-    public Kraken(int y, int x, GameMap map) {
-        super(y, x, map);
-        enemy = true;
+
+
+    /**
+     * <h2>Method to get amount of memory allocated by current thread</h2>
+     * @return allocated memory in bytes
+     */
+    private long allocatedMemory(){
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
     }
 
-    @Override
-    public char get_id(){
-        return ObjectValues.KRAKEN.value;
+
+    /**
+     * <h2>Method to execute one test on a map of given size</h2>
+     * @param algorithmValue which algorithm to execute
+     * @param size size of the side of generated map
+     * @param random random generator for the map
+     * @return array with execution time in nanoseconds, memory in bytes allocated for the map and memory in bytes
+     * allocated by the algorithm
+     */
+    private long[] measure(AlgorithmValues algorithmValue, int size, Random random){
+        long memoryBefore = allocatedMemory();
+        GameMap gameMap = new GameMap(size, size);
+        gameMap.generate(random);
+        Actor actor = new Actor(gameMap, gameMap.getJackSparrow().getCoordinates(), algorithmValue.getSpyGlass(gameMap));
+        Algorithm algorithm = algorithmValue.getAlgorithm(actor);
+        long mapMemory = allocatedMemory() - memoryBefore;
+        long start = System.nanoTime();
+        algorithm.execute(new Coordinates(0, 0), actor.findDeadMansChest());
+        long time = System.nanoTime() - start;
+        return new long[]{time, mapMemory, allocatedMemory() - memoryBefore - mapMemory};
     }
 
 
-    @Override
-    public List<Coordinates> get_perception_zone(){
-        ArrayList<Coordinates> perception_zone = new ArrayList<>();
-        int y = this.getCoordinates().y, x = this.getCoordinates().x;
-        for(int i = -1; i < 2; ++i){
-            for(int j = -1; j < 2; ++j){
-                if((i != 0 || j != 0) && (Math.abs(i) + Math.abs(j)) < 2){
-                    int perception_x = x + i, perception_y = y + j;
-                    if(perception_x >= 0 && perception_x <= 8 && perception_y >= 0 && perception_y <= 8)
-                        perception_zone.add(new Coordinates(perception_y, perception_x));
-                }
+    /**
+     * <h2>Method to execute given number of tests for each size and print results to given stream</h2>
+     * @param printStream given stream
+     * @param algorithmValue which algorithm to execute
+     * @param sizes sizes of the side of generated maps
+     */
+    public void execute(PrintStream printStream, AlgorithmValues algorithmValue, int[] sizes){
+        Random random = new Random();
+        printStream.println();
+        printStream.println(algorithmValue.title + " scaling:");
+        for (int size: sizes) {
+            double totalTime = 0, totalMapMemory = 0, totalAlgorithmMemory = 0;
+            for (int i = 0; i < this.numberOfTests; ++i) {
+                long[] result = measure(algorithmValue, size, random);
+                totalTime += result[0];
+                totalMapMemory += result[1];
+                totalAlgorithmMemory += result[2];
             }
+            printStream.printf("\t%dx%d: mean time %f ms, mean map memory %f MB, mean algorithm memory %f MB%n",
+                    size, size, totalTime / this.numberOfTests / 1_000_000,
+                    totalMapMemory / this.numberOfTests / (1 << 20),
+                    totalAlgorithmMemory / this.numberOfTests / (1 << 20));
         }
-        return perception_zone;
     }
-    @Override
-    public boolean in_danger_zone(MapObject map_object){
-        Coordinates coordinates = map_object.getCoordinates();
-        return Math.abs(coordinates.x - this.getCoordinates().x) + Math.abs(coordinates.y - this.getCoordinates().y) <= 1;
+
+
+    /**
+     * <h2>Method to solve maps generated from seeds {@code 0..numberOfTests - 1} by parallel backtracking</h2>
+     * @param size size of the side of generated maps
+     * @param parallelism number of threads of the pool
+     * @return total execution time in nanoseconds
+     */
+    private long solveParallel(int size, int parallelism){
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long totalTime = 0;
+        for (int i = 0; i < this.numberOfTests; ++i) {
+            GameMap gameMap = new GameMap(size, size);
+            gameMap.generate(new Random(i));
+            Actor actor = new Actor(gameMap, gameMap.getJackSparrow().getCoordinates(),
+                    AlgorithmValues.PARALLEL_BACKTRACKING.getSpyGlass(gameMap));
+            Algorithm algorithm = new ParallelBacktracking(actor, pool, 2);
+            long start = System.nanoTime();
+            algorithm.execute(new Coordinates(0, 0), actor.findDeadMansChest());
+            totalTime += System.nanoTime() - start;
+        }
+        pool.shutdown();
+        return totalTime;
     }
 
-    @Override
-    public boolean validate(){
-        for(MapObject map_object: Arrays.asList(this.getMap().getTortuga(), this.getMap().getDeadMansChest(),
-                this.getMap().getDavyJones(), this.getMap().getJackSparrow()))
-            if(map_object != null && map_object.getCoordinates() != null &&
-                    map_object.inside(this)) return false;
-        return true;
+
+    /**
+     * <h2>Method to measure parallel backtracking with pools of given parallelism and print results to given stream</h2>
+     * The same maps are solved with each pool after one unmeasured pass that warms up JIT, and the speedup is the
+     * ratio of mean time with the first pool to mean time with the current one.
+     * @param printStream given stream
+     * @param size size of the side of generated maps
+     * @param parallelisms numbers of threads of the pools
+     */
+    public void executeParallel(PrintStream printStream, int size, int[] parallelisms){
+        printStream.println();
+        printStream.println(AlgorithmValues.PARALLEL_BACKTRACKING.title + " scaling on " + size + "x" + size + ":");
+        solveParallel(size, parallelisms[0]);
+        double firstTime = 0;
+        for (int parallelism: parallelisms) {
+            double totalTime = solveParallel(size, parallelism);
+            if(firstTime == 0)
+                firstTime = totalTime;
+            printStream.printf("\t%d threads: mean time %f ms, speedup %.2f%n", parallelism,
+                    totalTime / this.numberOfTests / 1_000_000, firstTime / totalTime);
+        }
     }
 }
 
 
 /**
- * <h2>Class of a Rock</h2>
- * This the class of the Rock {@code MapObject} with its own position validator. It is used in
- * {@code GameMap} generation and initialization.
+ * <h2>Allocation tests class</h2>
+ * This is the class for counting memory allocated by the algorithms. Memory allocated for the map, the actor and the
+ * instance of the algorithm is not counted, so the result shows what the search itself allocates. The result is given
+ * per execution and per expanded node. Only the current thread is measured, so allocations of tasks of the parallel
+ * search in other threads are not counted. Memory of the returned path is measured separately by copying it, because
+ * it depends on the length of the path and not on the number of expanded nodes.
  */
-class Rock extends MapObject {
+class AllocationTest{
+    private final int numberOfTests;
+    private final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
 
-    public Rock(GameMap map){
-        super(map);
+    AllocationTest(int numberOfTests) {
+        this.numberOfTests = numberOfTests;
     }
-    public Rock(int y, int x, GameMap map) {
-        super(y, x, map);
-        enemy = true;
+
+
+    /**
+     * <h2>Method to get amount of memory allocated by current thread</h2>
+     * @return allocated memory in bytes
+     */
+    private long allocatedMemory(){
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
     }
 
-    @Override
-    public char get_id(){
-        return ObjectValues.ROCK.value;
+
+    /**
+     * <h2>Method to execute given number of tests and print results to given stream</h2>
+     * @param printStream given stream
+     * @param algorithmValue which algorithm to execute
+     * @param size size of the side of generated maps
+     * @return bytes per expanded node allocated by the search without the returned path
+     */
+    public double execute(PrintStream printStream, AlgorithmValues algorithmValue, int size){
+        Random random = new Random();
+        long totalMemory = 0, pathMemory = 0, totalExpandedNodes = 0;
+        for (int i = 0; i < this.numberOfTests; ++i) {
+            GameMap gameMap = new GameMap(size, size);
+            gameMap.generate(random);
+            Actor actor = new Actor(gameMap, gameMap.getJackSparrow().getCoordinates(),
+                    algorithmValue.getSpyGlass(gameMap));
+            Algorithm algorithm = algorithmValue.getAlgorithm(actor);
+            Coordinates start = new Coordinates(0, 0), target = actor.findDeadMansChest();
+            long memoryBefore = allocatedMemory();
+            LinkedList<Coordinates> path = algorithm.execute(start, target);
+            long memoryAfter = allocatedMemory();
+            totalMemory += memoryAfter - memoryBefore;
+            totalExpandedNodes += algorithm.expandedNodes;
+            LinkedList<Coordinates> copy = new LinkedList<>();
+            for (Coordinates coordinates : path)
+                copy.addLast(new Coordinates(coordinates.y, coordinates.x));
+            pathMemory += allocatedMemory() - memoryAfter;
+        }
+        double searchBytesPerNode = Math.max(0, totalMemory - pathMemory) / (double) Math.max(1, totalExpandedNodes);
+        printStream.printf("\t%s %dx%d: mean memory %.2f bytes, mean expanded nodes %.2f, %.2f bytes per expanded " +
+                        "node, %.2f without the path%n", algorithmValue.title, size, size,
+                totalMemory / (double) this.numberOfTests, totalExpandedNodes / (double) this.numberOfTests,
+                totalMemory / (double) Math.max(1, totalExpandedNodes), searchBytesPerNode);
+        return searchBytesPerNode;
     }
 
-    @Override
-    public boolean validate(){
-        for(MapObject map_object: Arrays.asList(this.getMap().getTortuga(), this.getMap().getDeadMansChest(),
-                this.getMap().getDavyJones(), this.getMap().getJackSparrow()))
-            if(map_object != null && map_object.getCoordinates() != null &&
-                    map_object.inside(this))
-                return false;
-        return true;
+
+    /**
+     * <h2>Method to check that the search allocates almost nothing per expanded node</h2>
+     * @param printStream given stream
+     * @param algorithmValue which algorithm to execute
+     * @param size size of the side of generated maps
+     * @param maxBytesPerNode largest allowed number of bytes per expanded node without the returned path
+     * @return true if the check passed
+     */
+    public boolean check(PrintStream printStream, AlgorithmValues algorithmValue, int size, double maxBytesPerNode){
+        return execute(printStream, algorithmValue, size) <= maxBytesPerNode;
     }
 }
 
 
 /**
- * <h2>Class of a Tortuga</h2>
- * This the class of the Dead Man's chest {@code MapObject} with its own position validator. It is used in
- * {@code GameMap} generation and initialization.
+ * <h2>Batch tests class</h2>
+ * This is the class for comparing the batch search with execution of product A* for each query. Queries are random
+ * pairs of different safe cells where starts are taken from a small set, so several queries share the start. Both
+ * ways get the same snapshot of the map and each query of the loop gets a new actor, as a single request would. It
+ * measures number of queries per second for both ways and number of queries where lengths of paths differ.
  */
-class DeadMansChest extends MapObject {
-    public DeadMansChest(GameMap map){
-        super(map);
-    }
+class BatchTest{
+    private final int numberOfTests;
 
-    public DeadMansChest(int y, int x, GameMap map) {
-        super(y, x, map);
+    BatchTest(int numberOfTests) {
+        this.numberOfTests = numberOfTests;
     }
 
-    @Override
-    public char get_id(){
-        return ObjectValues.DEAD_MANS_CHEST.value;
-    }
 
-    @Override
-    public boolean validate(){
-        if(this.getMap().getJackSparrow() != null && this.getMap().getRock() != null &&
-                this.getMap().getRock().getCoordinates() != null &&
-                this.getMap().getJackSparrow().getCoordinates() != null &&
-                this.getMap().getJackSparrow().inside(this) ||
-                this.getMap().getRock().inside(this)
-        )
-            return false;
-        for(MapObject map_object: Arrays.asList(this.getMap().getKraken(), this.getMap().getDavyJones()))
-            if(map_object != null && map_object.getCoordinates() != null &&
-                    map_object.in_danger_zone(this))
-                return false;
-        return true;
+    /**
+     * <h2>Method to execute tests and print results to given stream</h2>
+     * @param printStream given stream
+     * @param size size of the side of generated maps
+     * @param numberOfQueries number of queries on each map
+     * @param numberOfStarts number of different starts on each map
+     */
+    public void execute(PrintStream printStream, int size, int numberOfQueries, int numberOfStarts){
+        Random random = new Random();
+        long loopTime = 0, batchTime = 0, queryTime = 0;
+        int differentLengths = 0;
+        for (int test = 0; test < this.numberOfTests; ++test) {
+            GameMap gameMap = new GameMap(size, size);
+            gameMap.generate(random);
+            MapSnapshot snapshot = gameMap.snapshot();
+            List<Integer> safeCells = new ArrayList<>();
+            for (int cell = 0; cell < size * size; ++cell)
+                if(snapshot.howDanger(cell) == 0)
+                    safeCells.add(cell);
+            Coordinates[] starts = new Coordinates[numberOfStarts];
+            for (int i = 0; i < numberOfStarts; ++i)
+                starts[i] = Coordinates.fromIndex(safeCells.get(random.nextInt(safeCells.size())), size);
+            List<Query> queries = new ArrayList<>();
+            while (queries.size() < numberOfQueries) {
+                Coordinates queryStart = starts[random.nextInt(numberOfStarts)],
+                        target = Coordinates.fromIndex(safeCells.get(random.nextInt(safeCells.size())), size);
+                if(!target.equals(queryStart))
+                    queries.add(new Query(queryStart, target));
+            }
+            List<LinkedList<Coordinates>> loopResults = new ArrayList<>();
+            long start = System.nanoTime();
+            for (Query query: queries) {
+                Actor actor = new Actor(snapshot, query.start, new UsualSpyGlass(snapshot));
+                loopResults.add(AlgorithmValues.A_STAR_PRODUCT.getAlgorithm(actor).execute(query.start, query.target));
+            }
+            loopTime += System.nanoTime() - start;
+            start = System.nanoTime();
+            Actor actor = new Actor(snapshot, starts[0], new UsualSpyGlass(snapshot));
+            QueryResult[] batchResults = new BatchSearch(actor).execute(queries);
+            batchTime += System.nanoTime() - start;
+            for (int i = 0; i < numberOfQueries; ++i) {
+                queryTime += batchResults[i].time;
+                if(batchResults[i].path.size() != loopResults.get(i).size())
+                    ++differentLengths;
+            }
+        }
+        long totalQueries = (long) this.numberOfTests * numberOfQueries;
+        printStream.println();
+        printStream.printf("%dx%d, %d queries from %d starts:%n", size, size, numberOfQueries, numberOfStarts);
+        printStream.printf("\tloop of product A*: %.2f queries per second%n", totalQueries / (loopTime / 1e9));
+        printStream.printf("\tbatch search: %.2f queries per second, mean query time %f ms%n",
+                totalQueries / (batchTime / 1e9), queryTime / (double) totalQueries / 1_000_000);
+        printStream.printf("\tqueries with different lengths of paths: %d%n", differentLengths);
     }
 }
 
 
 /**
- * <h2>Class of a Tortuga</h2>
- * This the class of the Tortuga {@code MapObject} with its own position validator. It is used in
- * {@code GameMap} generation and initialization.
+ * <h2>Cache tests class</h2>
+ * This is the class for measuring the cache of solved maps on a workload where the same maps come back many times.
+ * Requests are maps generated from seeds taken from a small pool and they are solved by several threads with the
+ * shared cache and without it, that is by the algorithm itself. It measures time of both ways, hits, misses and
+ * evictions of the cache and number of requests where results differ.
  */
-class Tortuga extends MapObject {
-    public Tortuga(GameMap map){
-        super(map);
-    }
-    public Tortuga(int y, int x, GameMap map) {
-        super(y, x, map);
-    }
+class CacheTest{
+    private final int numberOfTests;
 
-    @Override
-    public char get_id(){
-        return ObjectValues.TORTUGA.value;
+    CacheTest(int numberOfTests) {
+        this.numberOfTests = numberOfTests;
     }
 
-    @Override
-    public boolean validate(){
-        for(MapObject map_object: Arrays.asList(this.getMap().getDeadMansChest(), this.getMap().getRock()))
-            if(map_object != null && map_object.getCoordinates() != null &&
-                    map_object.inside(this)) {
-                return false;
+
+    /**
+     * <h2>Method to execute tests and print results to given stream</h2>
+     * @param printStream given stream
+     * @param algorithmValue which algorithm to execute
+     * @param numberOfMaps number of different maps in the pool
+     * @param capacity capacity of the cache
+     * @param numberOfThreads number of threads that solve requests
+     * @throws InterruptedException if the thread is interrupted while waiting for the tasks
+     */
+    public void execute(PrintStream printStream, AlgorithmValues algorithmValue, int numberOfMaps, int capacity,
+                        int numberOfThreads) throws InterruptedException {
+        Random random = new Random();
+        long[] seeds = new long[this.numberOfTests];
+        for (int i = 0; i < this.numberOfTests; ++i)
+            seeds[i] = random.nextInt(numberOfMaps);
+        SolveCache cache = new SolveCache(capacity);
+        SolveCache.Result[][] results = new SolveCache.Result[2][this.numberOfTests];
+        long[] times = new long[2];
+        for (int way = 0; way < 2; ++way) {
+            ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+            boolean cached = way == 1;
+            long start = System.nanoTime();
+            for (int i = 0; i < this.numberOfTests; ++i) {
+                int request = i;
+                pool.execute(() -> {
+                    GameMap gameMap = new GameMap();
+                    gameMap.generate(new Random(seeds[request]));
+                    if(cached) {
+                        results[1][request] = cache.solve(gameMap, new Coordinates(0, 0), algorithmValue);
+                    } else {
+                        Actor actor = new Actor(gameMap, gameMap.getJackSparrow().getCoordinates(),
+                                algorithmValue.getSpyGlass(gameMap));
+                        Algorithm algorithm = algorithmValue.getAlgorithm(actor);
+                        LinkedList<Coordinates> path = algorithm.execute(new Coordinates(0, 0),
+                                actor.findDeadMansChest());
+                        results[0][request] = new SolveCache.Result(path, algorithm.isKrakenAlive);
+                    }
+                });
             }
-        for(MapObject map_object: Arrays.asList(this.getMap().getKraken(), this.getMap().getDavyJones()))
-            if(map_object != null && map_object.getCoordinates() != null &&
-                    map_object.in_danger_zone(this)) return false;
-        return true;
+            pool.shutdown();
+            pool.awaitTermination(1, java.util.concurrent.TimeUnit.HOURS);
+            times[way] = System.nanoTime() - start;
+        }
+        int differentResults = 0;
+        for (int i = 0; i < this.numberOfTests; ++i)
+            if(results[0][i].win != results[1][i].win || !results[0][i].path.equals(results[1][i].path) ||
+                    results[0][i].krakenAlive != results[1][i].krakenAlive)
+                ++differentResults;
+        printStream.println();
+        printStream.printf("%s, %d requests to %d maps, capacity %d, %d threads:%n", algorithmValue.title,
+                this.numberOfTests, numberOfMaps, capacity, numberOfThreads);
+        printStream.printf("\twithout cache %f ms, with cache %f ms%n", times[0] / 1_000_000.0,
+                times[1] / 1_000_000.0);
+        printStream.printf("\thits %d, misses %d, evictions %d, different results %d%n", cache.getHits(),
+                cache.getMisses(), cache.getEvictions(), differentResults);
     }
 }
 
 
 /**
- * <h2>Enumeration of targets for Compass</h2>
- * This is the enumeration that consists of all possible compass targets.
+ * <h2>Benchmark class</h2>
+ * This is the harness for microbenchmarks of the engines, the Fibonacci heap and the generator of maps. Each benchmark
+ * is run in its own forked JVM, so the profile collected by JIT for one benchmark does not affect another one. In the
+ * fork the benchmark makes {@code warmupIterations} iterations that are not measured and then
+ * {@code measurementIterations} measured ones. Every iteration goes over the same fixed corpus: maps generated from
+ * seeds {@code 0..CORPUS_SIZE - 1} or heaps filled with keys generated from seeds {@code 0..HEAPS - 1}. Preparation of
+ * the corpus for an iteration, such as creation of actors or filling of heaps, is done before the timer is started.
+ * Results of the operations are folded into the blackhole, so they can not be removed as dead code. For each iteration
+ * the fork prints its time, number of operations, memory allocated by the thread and number of garbage collections,
+ * and the parent process prints mean and standard deviation over all iterations of all forks: time per operation,
+ * allocation rate, allocated memory per operation and number of garbage collections.
  */
-enum CompassTarget {
-    TORTUGA,
-    DEAD_MANS_CHEST
-}
+class Benchmark{
+    //number of maps in the corpus, number of heaps and number of nodes in each heap
+    private static final int CORPUS_SIZE = 256, HEAPS = 64, HEAP_SIZE = 1024;
+    private static volatile long sink;
+    private final int forks, warmupIterations, measurementIterations;
+    private final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private long blackhole;
+    //corpus prepared for the next iteration
+    private GameMap[] maps;
+    private Algorithm[] algorithms;
+    private Coordinates[] starts, targets;
+    private List<PriorityQueue<Integer, Integer>> heaps;
+    private Node<Integer, Integer>[][] nodes;
+    private Integer[][] newKeys;
+    private Node<Integer, Integer>[] extracted;
+
+    Benchmark(int forks, int warmupIterations, int measurementIterations) {
+        this.forks = forks;
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+    }
 
 
-/**
- * <h2>Class of a compass</h2>
- * This the class that provides the main agent an ability to find coordinates of Tortuga and Dead Man's Chest.
- * To interact with main method {@code show} you need to provide a target in {@code CompassTarget} form.
- */
-class Compass{
+    /**
+     * <h2>Method to get amount of memory allocated by current thread</h2>
+     * @return allocated memory in bytes
+     */
+    private long allocatedMemory(){
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
 
-    private final GameMap gameMap;
-    public Compass(GameMap gameMap){
-        this.gameMap = gameMap;
+
+    /**
+     * <h2>Method to get number of garbage collections made by all collectors</h2>
+     * @return number of garbage collections
+     */
+    private static long garbageCollections(){
+        long result = 0;
+        for (java.lang.management.GarbageCollectorMXBean collector: ManagementFactory.getGarbageCollectorMXBeans())
+            result += Math.max(0, collector.getCollectionCount());
+        return result;
     }
-    public GameMap.Node show(CompassTarget compassTarget){
-        switch (compassTarget){
-            case TORTUGA -> {
-                return gameMap.getTortuga().getCoordinates().getByCoordinates(gameMap.getMatrix());
-            } case DEAD_MANS_CHEST -> {
-                return gameMap.getDeadMansChest().getCoordinates().getByCoordinates(gameMap.getMatrix());
-            }
-        }
-        return null;
+
+
+    /**
+     * <h2>Method to fold the result of an operation into the blackhole</h2>
+     * @param value result of the operation
+     */
+    private void consume(long value){
+        blackhole = 31 * blackhole + value;
     }
-}
 
 
-/**
- * <h2>Class of a main actor</h2>
- * This the class that provides the main logic for an agent. Here are implemented different methods, which provides
- * abstraction over our technical assignment. Actor can find Tortuga or Dead Man's Chest using special methods of
- * {@code Compass}. It also allows main agent to explore map using his {@code SpyGlass} and save all this data on
- * his own map.
- */
-class Actor{
-    private final Compass compass;
-    private final SpyGlass spyGlass;
-    private Coordinates coordinates;
+    /**
+     * <h2>Method to create array of nodes of heaps</h2>
+     * @param size number of nodes
+     * @return array of null nodes
+     */
+    @SuppressWarnings("unchecked")
+    private static Node<Integer, Integer>[] createNodes(int size){
+        return (Node<Integer, Integer>[]) new Node<?, ?>[size];
+    }
 
-    private final List<List<GameMap.Node>> mapInMemory;
-    boolean[][] alreadyExplored;
 
-    public Actor(GameMap environment, Coordinates coordinates, SpyGlass spyGlass){
-        this.coordinates = coordinates;
-        this.compass = new Compass(environment);
-        this.spyGlass = spyGlass;
-        this.mapInMemory = new ArrayList<>(81);
-        this.alreadyExplored = new boolean[9][9];
-        for(int i = 0; i < 9; ++i){
-            this.mapInMemory.add(new ArrayList<>(9));
-            for(int j = 0; j < 9; ++j){
-                this.mapInMemory.get(i).add(null);
-                this.alreadyExplored[i][j] = false;
+    /**
+     * <h2>Method to create arrays of nodes for each heap</h2>
+     * @param heaps number of heaps
+     * @param size number of nodes in each heap
+     * @return arrays of null nodes
+     */
+    @SuppressWarnings("unchecked")
+    private static Node<Integer, Integer>[][] createNodes(int heaps, int size){
+        return (Node<Integer, Integer>[][]) new Node<?, ?>[heaps][size];
+    }
+
+
+    /**
+     * <h2>Method to prepare the corpus for the next iteration</h2>
+     * @param benchmarkValue which benchmark is run
+     */
+    private void setUp(BenchmarkValues benchmarkValue){
+        if(maps == null) {
+            maps = new GameMap[CORPUS_SIZE];
+            for (int i = 0; i < CORPUS_SIZE; ++i) {
+                maps[i] = new GameMap();
+                maps[i].generate(new Random(i));
+            }
+        }
+        switch (benchmarkValue) {
+            case A_STAR_EXECUTE, BACKTRACKING_EXECUTE -> {
+                AlgorithmValues algorithmValue = benchmarkValue == BenchmarkValues.A_STAR_EXECUTE ?
+                        AlgorithmValues.A_STAR : AlgorithmValues.BACKTRACKING;
+                algorithms = new Algorithm[CORPUS_SIZE];
+                starts = new Coordinates[CORPUS_SIZE];
+                targets = new Coordinates[CORPUS_SIZE];
+                for (int i = 0; i < CORPUS_SIZE; ++i) {
+                    Actor actor = new Actor(maps[i], maps[i].getJackSparrow().getCoordinates(),
+                            algorithmValue.getSpyGlass(maps[i]));
+                    algorithms[i] = algorithmValue.getAlgorithm(actor);
+                    starts[i] = new Coordinates(0, 0);
+                    targets[i] = actor.findDeadMansChest();
+                }
+            }
+            case HEAP_INSERT, HEAP_EXTRACT_MIN, HEAP_DECREASE_KEY, HEAP_CONSOLIDATE -> {
+                heaps = new ArrayList<>(HEAPS);
+                nodes = createNodes(HEAPS, HEAP_SIZE);
+                newKeys = new Integer[HEAPS][HEAP_SIZE];
+                extracted = createNodes(HEAPS);
+                for (int i = 0; i < HEAPS; ++i) {
+                    Random random = new Random(i);
+                    PriorityQueue<Integer, Integer> heap = new PriorityQueue<>(Comparator.comparing(Node::getKey));
+                    for (int j = 0; j < HEAP_SIZE; ++j) {
+                        nodes[i][j] = new Node<>(random.nextInt(1 << 20), j);
+                        //new keys are negative, so they are less than current keys and reorder the nodes
+                        newKeys[i][j] = -1 - random.nextInt(1 << 20);
+                        if(benchmarkValue != BenchmarkValues.HEAP_INSERT)
+                            heap.insert(nodes[i][j]);
+                    }
+                    //the first extraction links all roots, so the heap consists of trees for the next operations
+                    if(benchmarkValue == BenchmarkValues.HEAP_EXTRACT_MIN ||
+                            benchmarkValue == BenchmarkValues.HEAP_DECREASE_KEY)
+                        extracted[i] = heap.extractMin();
+                    heaps.add(heap);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * <h2>Method to make the measured part of one iteration</h2>
+     * @param benchmarkValue which benchmark is run
+     * @return number of operations made
+     * @throws Exception if the heap refuses to decrease a key
+     */
+    private int run(BenchmarkValues benchmarkValue) throws Exception {
+        switch (benchmarkValue) {
+            case A_STAR_EXECUTE, BACKTRACKING_EXECUTE -> {
+                for (int i = 0; i < CORPUS_SIZE; ++i)
+                    consume(algorithms[i].execute(starts[i], targets[i]).size());
+                return CORPUS_SIZE;
+            }
+            case HEAP_INSERT -> {
+                for (int i = 0; i < HEAPS; ++i) {
+                    for (Node<Integer, Integer> node: nodes[i])
+                        heaps.get(i).insert(node);
+                    consume(heaps.get(i).findMin().getKey());
+                }
+                return HEAPS * HEAP_SIZE;
+            }
+            case HEAP_EXTRACT_MIN -> {
+                for (PriorityQueue<Integer, Integer> heap: heaps)
+                    while (!heap.isEmpty())
+                        consume(heap.extractMin().getKey());
+                return HEAPS * (HEAP_SIZE - 1);
+            }
+            case HEAP_DECREASE_KEY -> {
+                for (int i = 0; i < HEAPS; ++i) {
+                    PriorityQueue<Integer, Integer> heap = heaps.get(i);
+                    for (int j = 0; j < HEAP_SIZE; ++j)
+                        if(nodes[i][j] != extracted[i])
+                            heap.decreaseKey(nodes[i][j], newKeys[i][j]);
+                    consume(heap.findMin().getKey());
+                }
+                return HEAPS * (HEAP_SIZE - 1);
+            }
+            case HEAP_CONSOLIDATE -> {
+                //the heap has only roots, so extraction of the minimum is dominated by their consolidation
+                for (PriorityQueue<Integer, Integer> heap: heaps)
+                    consume(heap.extractMin().getKey());
+                return HEAPS;
+            }
+            case MAP_GENERATE -> {
+                for (int i = 0; i < CORPUS_SIZE; ++i) {
+                    GameMap gameMap = new GameMap();
+                    gameMap.generate(new Random(i));
+                    consume(gameMap.getId(0));
+                }
+                return CORPUS_SIZE;
+            }
+            case MAP_MAKE_MATRIX -> {
+                for (GameMap gameMap: maps) {
+                    gameMap.makeMatrix();
+                    consume(gameMap.getId(0));
+                }
+                return CORPUS_SIZE;
             }
         }
-        findTortuga().setByCoordinates(this.mapInMemory, compass.show(CompassTarget.TORTUGA));
+        return 0;
     }
 
-    public void explore(){
-        if(!alreadyExplored[coordinates.y][coordinates.x]) {
-            spyGlass.explore(this.coordinates, this.mapInMemory);
-            alreadyExplored[coordinates.y][coordinates.x] = true;
-        }
-    }
 
-    public List<List<GameMap.Node>> getMapInMemory() {
-        return mapInMemory;
+    /**
+     * <h2>Method to run given benchmark in the current JVM</h2>
+     * It is called in the forked JVM. It prints one line for each measured iteration: time in nanoseconds, number of
+     * operations, allocated memory in bytes and number of garbage collections.
+     * @param printStream given stream
+     * @param benchmarkValue which benchmark to run
+     * @throws Exception if the heap refuses to decrease a key
+     */
+    public void fork(PrintStream printStream, BenchmarkValues benchmarkValue) throws Exception {
+        for (int i = 0; i < this.warmupIterations + this.measurementIterations; ++i) {
+            setUp(benchmarkValue);
+            long collectionsBefore = garbageCollections(), memoryBefore = allocatedMemory();
+            long start = System.nanoTime();
+            int operations = run(benchmarkValue);
+            long time = System.nanoTime() - start;
+            long memory = allocatedMemory() - memoryBefore, collections = garbageCollections() - collectionsBefore;
+            sink = blackhole;
+            if(i >= this.warmupIterations)
+                printStream.printf("%d %d %d %d%n", time, operations, memory, collections);
+        }
+        printStream.flush();
     }
 
-    public Coordinates getCoordinates() {
-        return coordinates;
-    }
 
-    public void setCoordinates(Coordinates coordinates) {
-        this.coordinates = coordinates;
+    /**
+     * <h2>Method to print one row of the results</h2>
+     * @param printStream given stream
+     * @param title title of the row
+     * @param values values of the iterations
+     * @param units units of the values
+     */
+    private static void printRow(PrintStream printStream, String title, double[] values, String units){
+        double mean = 0, deviation = 0;
+        for (double value: values)
+            mean += value;
+        mean /= values.length;
+        for (double value: values)
+            deviation += (value - mean) * (value - mean);
+        deviation = values.length > 1 ? Math.sqrt(deviation / (values.length - 1)) : 0;
+        printStream.printf("%-45s %5d %15.3f +- %12.3f  %s%n", title, values.length, mean, deviation, units);
     }
 
 
-    public Coordinates findTortuga(){
-        return compass.show(CompassTarget.TORTUGA).getCoordinates();
-    }
-
-    public Coordinates findDeadMansChest(){
-        return compass.show(CompassTarget.DEAD_MANS_CHEST).getCoordinates();
+    /**
+     * <h2>Method to run given benchmarks in forked JVMs and print results to given stream</h2>
+     * @param printStream given stream
+     * @param benchmarkValues which benchmarks to run
+     * @throws IOException if the forked JVM can not be started
+     * @throws InterruptedException if the thread is interrupted while waiting for the forked JVM
+     */
+    public void execute(PrintStream printStream, BenchmarkValues[] benchmarkValues)
+            throws IOException, InterruptedException {
+        String javaPath = java.nio.file.Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        printStream.printf("%d forks, %d warmup iterations, %d measurement iterations%n", this.forks,
+                this.warmupIterations, this.measurementIterations);
+        printStream.printf("%-45s %5s %15s   %12s  %s%n", "Benchmark", "Cnt", "Score", "StdDev", "Units");
+        for (BenchmarkValues benchmarkValue: benchmarkValues) {
+            List<long[]> iterations = new ArrayList<>();
+            for (int i = 0; i < this.forks; ++i) {
+                Process process = new ProcessBuilder(javaPath, "-cp", System.getProperty("java.class.path"),
+                        KirillKorolev.class.getName(), "--benchmark", benchmarkValue.name(),
+                        String.valueOf(this.warmupIterations), String.valueOf(this.measurementIterations))
+                        .redirectErrorStream(true).start();
+                Scanner scanner = new Scanner(process.getInputStream());
+                while (scanner.hasNextLong())
+                    iterations.add(new long[]{scanner.nextLong(), scanner.nextLong(), scanner.nextLong(),
+                            scanner.nextLong()});
+                if(process.waitFor() != 0)
+                    throw new IOException("Fork of " + benchmarkValue.title + " failed");
+            }
+            double[] time = new double[iterations.size()], rate = new double[iterations.size()],
+                    norm = new double[iterations.size()], count = new double[iterations.size()];
+            for (int i = 0; i < iterations.size(); ++i) {
+                long[] iteration = iterations.get(i);
+                time[i] = iteration[0] / (double) iteration[1];
+                rate[i] = iteration[2] / (double) (1 << 20) / (iteration[0] / 1_000_000_000.0);
+                norm[i] = iteration[2] / (double) iteration[1];
+                count[i] = iteration[3];
+            }
+            printRow(printStream, benchmarkValue.title, time, "ns/op");
+            printRow(printStream, benchmarkValue.title + ":gc.alloc.rate", rate, "MB/sec");
+            printRow(printStream, benchmarkValue.title + ":gc.alloc.rate.norm", norm, "B/op");
+            printRow(printStream, benchmarkValue.title + ":gc.count", count, "counts");
+        }
     }
 }
 
 
 /**
- * <h2>Abstract class SpyGlass</h2>
- * This the class that provides the logic of spyglass used by Jack Sparrow. Here can be found common methods for all
- * spyglasses, common variables and etc. The main method for this class is explore that provides an ability to explore
- * game map and save the results to given map.
+ * <h2>Generation tests class</h2>
+ * This is the class for checking random generation of maps of given size. Every generated map should contain all six
+ * objects inside its boundaries. Besides, the generator draws a cell for each object and the object should be placed
+ * exactly there when the cell is free, so generation with a generator that always draws the same cell should put the
+ * first object, Davy Jones, to this cell. Rows and columns of the drawn cell are not interchangeable on a map that is not
+ * square, so the check fails if they are confused. Maps with a side less than {@code GameMap.MIN_SIDE} can not be
+ * generated for all positions of objects, so they should be rejected when the map is created.
  */
-abstract class SpyGlass{
-    List<List<GameMap.Node>> map;
-    int[][] exploreArea;
+class GenerationTest{
+    private final int numberOfTests;
 
-    public SpyGlass(List<List<GameMap.Node>> map){
-        this.map = map;
+    GenerationTest(int numberOfTests) {
+        this.numberOfTests = numberOfTests;
     }
 
-    public void explore(Coordinates coordinates, List<List<GameMap.Node>> explorationMap){
-        for (int[] cell : exploreArea) {
-            Coordinates sum = coordinates.getSum(cell[0], cell[1]);
-            if(Algorithm.inBoundaries(sum))
-                if (sum.getByCoordinates(explorationMap) == null)
-                    sum.setByCoordinates(explorationMap, sum.getByCoordinates(this.map));
+
+    /**
+     * <h2>Method to execute tests and print results to given stream</h2>
+     * @param printStream given stream
+     * @param height height of generated maps
+     * @param width width of generated maps
+     * @return true if all checks passed
+     */
+    public boolean execute(PrintStream printStream, int height, int width){
+        Random random = new Random();
+        int brokenMaps = 0;
+        for (int i = 0; i < this.numberOfTests; ++i) {
+            GameMap gameMap = new GameMap(height, width);
+            if(!gameMap.generate(random) || !isComplete(gameMap))
+                ++brokenMaps;
         }
+        //the cell in the last but one row and column, drawn in the way the generator draws cells
+        Coordinates drawn = new Coordinates(height - 2, width - 2);
+        Random fixed = new Random() {
+            @Override
+            public int nextInt(int origin, int bound) {
+                return drawn.x * height + drawn.y;
+            }
+        };
+        GameMap gameMap = new GameMap(height, width);
+        boolean placed = gameMap.generate(fixed) && isComplete(gameMap) &&
+                gameMap.getDavyJones().getCoordinates().equals(drawn);
+        printStream.printf("\t%dx%d: %d of %d maps are broken, drawn cell is %s%n", height, width, brokenMaps,
+                this.numberOfTests, placed ? "used" : "not used");
+        return brokenMaps == 0 && placed;
     }
-}
 
 
-/**
- * <h2>Usual spyglass class</h2>
- * This the class for the usual spyglass. It has specific explore area in the constructor, so it's explore method
- * works specifically. The explore area is smaller than the explore area of super spyglass.
- */
-class UsualSpyGlass extends SpyGlass{
-
-    public UsualSpyGlass(List<List<GameMap.Node>> map) {
-        super(map);
-        this.exploreArea = new int[][] {{1, 1}, {1, 0}, {0, 1}, {1, -1}, {-1, 1}, {0, -1}, {-1, 0}, {-1, -1}};
+    /**
+     * <h2>Method to check that a map of given size, which can not be generated, is rejected</h2>
+     * @param printStream given stream
+     * @param height height of the map
+     * @param width width of the map
+     * @return true if the check passed
+     */
+    public static boolean executeRejected(PrintStream printStream, int height, int width){
+        boolean rejected;
+        try {
+            new GameMap(height, width);
+            rejected = false;
+        } catch (IllegalArgumentException exception) {
+            rejected = true;
+        }
+        printStream.printf("\t%dx%d: map is %s%n", height, width, rejected ? "rejected" : "not rejected");
+        return rejected;
     }
-}
 
 
-/**
- * <h2>Super spyglass class</h2>
- * This the class for the super spyglass. It has specific explore area in the constructor, so it's explore method
- * works specifically.
- */
-class SuperSpyGlass extends SpyGlass{
-
-    public SuperSpyGlass(List<List<GameMap.Node>> map) {
-        super(map);
-        this.exploreArea = new int[][] {{2, 0}, {-2, 0}, {0, 2}, {0, -2}, {1, 1}, {1, 0},
-                {0, 1}, {1, -1}, {-1, 1}, {0, -1}, {-1, 0}, {-1, -1}};
+    /**
+     * <h2>Method to check that the map contains all objects inside its boundaries</h2>
+     * @param gameMap generated map
+     * @return true if the map is complete
+     */
+    private static boolean isComplete(GameMap gameMap){
+        for (MapObject mapObject: Arrays.asList(gameMap.getJackSparrow(), gameMap.getDavyJones(),
+                gameMap.getKraken(), gameMap.getRock(), gameMap.getDeadMansChest(), gameMap.getTortuga()))
+            if(mapObject == null || !gameMap.inBoundaries(mapObject.getCoordinates()))
+                return false;
+        return true;
     }
 }
 
 
 /**
- * <h2>Statistical tests class</h2>
- * This is the class for getting the information about statistical tests. The size of sample is provided in the
- * constructor and the type of an algorithm is provided for execution method({@code execute}).
+ * <h2>Heap tests class</h2>
+ * This is the class for checking the Fibonacci heap against {@code java.util.PriorityQueue}. Both queues get the same
+ * random sequence of insertions, extractions of minimum, decreases of keys and deletions, and after each operation
+ * their minimal keys should be equal. Decreases of keys and deletions cut nodes from their parents, so the sequence
+ * checks the cascading cuts and the links left by them.
  */
-class StatisticalTest{
+class HeapTest{
     private final int numberOfTests;
-    private final List<Long> times;
-    private final HashMap<Long, Integer> timePopularity;
 
-    StatisticalTest(int numberOfTests) {
+    HeapTest(int numberOfTests) {
         this.numberOfTests = numberOfTests;
-        times = new ArrayList<>(numberOfTests);
-        timePopularity = new HashMap<>(numberOfTests);
     }
 
-    private double findMean(){
-        double result = 0;
-        for(long time: this.times)
-            result += time;
-        return result / this.numberOfTests / 1_000_000;
-    }
 
-    private double findMode(){
-        long mostPopularTime = -1;
-        int maxPopularity = 0;
-        for(Map.Entry<Long, Integer> entry: timePopularity.entrySet())
-            if(entry.getValue() > maxPopularity){
-                maxPopularity = entry.getValue();
-                mostPopularTime = entry.getKey();
-            }
-        return (double) mostPopularTime / 1_000_000.0;
+    /**
+     * <h2>Method to execute tests and print results to given stream</h2>
+     * @param printStream given stream
+     * @param numberOfOperations number of operations in each test
+     * @return true if all checks passed
+     */
+    public boolean execute(PrintStream printStream, int numberOfOperations){
+        Random random = new Random();
+        int failedTests = 0;
+        for (int i = 0; i < this.numberOfTests; ++i)
+            if(!check(random, numberOfOperations))
+                ++failedTests;
+        printStream.printf("\t%d of %d sequences of %d operations differ from the reference%n", failedTests,
+                this.numberOfTests, numberOfOperations);
+        return failedTests == 0;
     }
 
 
     /**
-     * <h2>Method to calculate median</h2>
-     * @return median value
+     * <h2>Method to check one random sequence of operations</h2>
+     * @param random random generator of operations and keys
+     * @param numberOfOperations number of operations
+     * @return true if the heap behaved as the reference queue
      */
-    public double findMedian(){
-        if(this.numberOfTests % 2 == 0){
-            return (times.get(this.numberOfTests / 2) + times.get(this.numberOfTests / 2 + 1)) / 2_000_000.0;
-        } else{
-            return times.get(this.numberOfTests / 2) / 1_000_000.0;
+    @SuppressWarnings("unchecked")
+    private static boolean check(Random random, int numberOfOperations){
+        try {
+            PriorityQueue<Integer, Integer> heap = new PriorityQueue<>(Comparator.comparing(Node::getKey));
+            //entries of the reference queue are pairs of key and value
+            java.util.PriorityQueue<int[]> reference = new java.util.PriorityQueue<>(
+                    Comparator.comparingInt((int[] entry) -> entry[0]));
+            Node<Integer, Integer>[] nodes = (Node<Integer, Integer>[]) new Node<?, ?>[numberOfOperations];
+            int[][] entries = new int[numberOfOperations][];
+            List<Integer> alive = new ArrayList<>();
+            boolean failed = false;
+            for (int value = 0; value < numberOfOperations && !failed; ++value) {
+                int operation = random.nextInt(10);
+                if(operation < 4 || alive.isEmpty()) {
+                    nodes[value] = new Node<>(random.nextInt(1000), value);
+                    entries[value] = new int[]{nodes[value].getKey(), value};
+                    heap.insert(nodes[value]);
+                    reference.add(entries[value]);
+                    alive.add(value);
+                } else if(operation < 7) {
+                    Node<Integer, Integer> node = heap.extractMin();
+                    failed = node.getKey() != reference.peek()[0] || !reference.remove(entries[node.getValue()]);
+                    alive.remove(node.getValue());
+                } else {
+                    int victim = alive.get(random.nextInt(alive.size()));
+                    reference.remove(entries[victim]);
+                    if(operation < 9) {
+                        heap.decreaseKey(nodes[victim], nodes[victim].getKey() - random.nextInt(1000));
+                        entries[victim] = new int[]{nodes[victim].getKey(), victim};
+                        reference.add(entries[victim]);
+                    } else {
+                        heap.delete(nodes[victim]);
+                        alive.remove((Integer) victim);
+                    }
+                }
+                failed |= heap.isEmpty() != reference.isEmpty() ||
+                        !heap.isEmpty() && heap.findMin().getKey() != reference.peek()[0];
+            }
+            while (!failed && !reference.isEmpty())
+                failed = heap.isEmpty() || heap.extractMin().getKey() != reference.poll()[0];
+            return !failed && heap.isEmpty();
+        } catch (Exception exception) {
+            return false;
         }
     }
+}
 
 
-    /**
-     * <h2>Method to calculate standard deviation</h2>
-     * @param mean mean value of sample
-     * @return standard deviation value
-     */
-    public double getStandardDeviation(double mean){
-        double result = 0;
-        for (long time: times){
-            result += Math.pow(time / 1_000_000.0 - mean, 2);
-        }
-        return Math.sqrt(result / (this.numberOfTests - 1));
+/**
+ * <h2>Memo tests class</h2>
+ * This is the class for comparing the tables of best values used by backtracking. Maps are generated randomly and only
+ * adversarial ones are kept: maps where the shortest path requires killing Kraken, so the branches of backtracking
+ * reach the same cells with different Kraken flags. For each kind of the table it measures mean number of recursive
+ * calls that were not cut off, mean execution time and number of maps where the found path is longer than the path of
+ * A* over states.
+ */
+class MemoTest{
+    private final int numberOfTests;
+
+    MemoTest(int numberOfTests) {
+        this.numberOfTests = numberOfTests;
     }
 
+
     /**
-     * <h2>Method to execute given number of tests and print results to given stream</h2>
-     * @param printStream given stram
-     * @param algorithmValue which algorithm to execute
+     * <h2>Method to execute tests on adversarial maps and print results to given stream</h2>
+     * @param printStream given stream
+     * @param superSpyGlass whether actor uses the super spyglass
      */
-    public void execute(PrintStream printStream, AlgorithmValues algorithmValue){
+    public void execute(PrintStream printStream, boolean superSpyGlass){
         Random random = new Random();
-        GameMap gameMap;
-        long start;
-        Actor actor;
-        SpyGlass spyGlass;
-        Algorithm algorithm;
-        int numberOfWins = 0, numberOfLoses = 0;
-        for (int i = 0; i < this.numberOfTests; ++i){
-            gameMap = new GameMap();
-            gameMap.generate(random);
-            if(algorithmValue == AlgorithmValues.A_STAR_SUPER || algorithmValue == AlgorithmValues.BACKTRACKING_SUPER)
-                spyGlass = new SuperSpyGlass(gameMap.getMatrix());
-            else
-                spyGlass = new UsualSpyGlass(gameMap.getMatrix());
-            actor =  new Actor(gameMap, gameMap.getJackSparrow().getCoordinates(), spyGlass);
-            if(algorithmValue == AlgorithmValues.A_STAR || algorithmValue == AlgorithmValues.A_STAR_SUPER)
-                algorithm = new AStar(actor);
-            else
-                algorithm = new Backtracking(actor);
-            start = System.nanoTime();
-            List<Coordinates> result = algorithm.execute(gameMap.getMatrix().get(0).get(0),actor.findDeadMansChest());
-            long time = System.nanoTime() - start;
-            times.add(time);
-            if(result.isEmpty())
-                ++numberOfLoses;
-            else
-                ++numberOfWins;
-            int howPopularTime = timePopularity.getOrDefault(time, 0);
-            timePopularity.put(time, howPopularTime + 1);
-        }
-        double mean = findMean();
-        double mode = findMode();
-        times.sort(Long::compareTo);
-        double median = findMedian();
-        double standardDeviation = getStandardDeviation(mean);
-        printStream.println();
-        switch (algorithmValue){
-            case A_STAR -> printStream.println("A* (SPYGLASS) results:");
-            case A_STAR_SUPER -> printStream.println("A* (SUPER SPYGLASS) results:");
-            case BACKTRACKING -> printStream.println("Backtracking (SPYGLASS) results:");
-            case BACKTRACKING_SUPER -> printStream.println("Backtracking (SUPER SPYGLASS) results:");
+        MemoValues[] memoValues = MemoValues.values();
+        long[] calls = new long[memoValues.length], times = new long[memoValues.length];
+        int[] longerPaths = new int[memoValues.length];
+        for (int found = 0; found < this.numberOfTests; ) {
+            long seed = random.nextLong();
+            GameMap gameMap = new GameMap();
+            gameMap.generate(new Random(seed));
+            SpyGlass spyGlass = superSpyGlass ? new SuperSpyGlass(gameMap) : new UsualSpyGlass(gameMap);
+            Actor actor = new Actor(gameMap, gameMap.getJackSparrow().getCoordinates(), spyGlass);
+            AStar aStar = new AStar(actor, true);
+            List<Coordinates> shortest = aStar.execute(new Coordinates(0, 0), actor.findDeadMansChest());
+            if(shortest.isEmpty() || aStar.isKrakenAlive)
+                continue;
+            ++found;
+            for (MemoValues memoValue: memoValues) {
+                gameMap = new GameMap();
+                gameMap.generate(new Random(seed));
+                spyGlass = superSpyGlass ? new SuperSpyGlass(gameMap) : new UsualSpyGlass(gameMap);
+                actor = new Actor(gameMap, gameMap.getJackSparrow().getCoordinates(), spyGlass);
+                Backtracking backtracking = new Backtracking(actor, memoValue);
+                long start = System.nanoTime();
+                List<Coordinates> result = backtracking.execute(new Coordinates(0, 0), actor.findDeadMansChest());
+                times[memoValue.ordinal()] += System.nanoTime() - start;
+                calls[memoValue.ordinal()] += backtracking.expandedNodes;
+                if(result.size() != shortest.size())
+                    ++longerPaths[memoValue.ordinal()];
+            }
         }
-        printStream.printf("""
-                        \tMean: %f ms
-                        \tMode: %f ms
-                        \tMedian: %f ms
-                        \tStandard deviation: %f ms
-                        \tNumber of wins: %d
-                        \tNumber of loses: %d
-                        \tPercent of wins: %.2f%%
-                        \tPercent of loses: %.2f%%
-                        """,
-                mean, mode, median, standardDeviation, numberOfWins, numberOfLoses, numberOfWins /
-                        (double) this.numberOfTests * 100, numberOfLoses / (double) this.numberOfTests * 100);
+        printStream.println();
+        printStream.println("Backtracking tables of best values on adversarial maps " +
+                (superSpyGlass ? "(SUPER SPYGLASS):" : "(SPYGLASS):"));
+        for (MemoValues memoValue: memoValues)
+            printStream.printf("\t%s: mean recursive calls %.2f, mean time %f ms, longer paths %d%n", memoValue,
+                    calls[memoValue.ordinal()] / (double) this.numberOfTests,
+                    times[memoValue.ordinal()] / (double) this.numberOfTests / 1_000_000,
+                    longerPaths[memoValue.ordinal()]);
     }
 }
 
@@ -1777,6 +5899,7 @@ interface IPriorityQueue<K extends Comparable<K>,V> {
     void decreaseKey(Node<K, V> item, K newKey) throws Exception;
     void delete(Node<K, V> item);
     void union(PriorityQueue<K, V> anotherQueue);
+    boolean isEmpty();
 }
 
 
@@ -1876,10 +5999,14 @@ class DoublyLinkedCircularList<K, V> implements Iterable<Node<K, V>>{
 
     /**
      * <h2>Remove {@code Node<K, V>}</h2>
+     * Links of removed item are kept, so it is still possible to get its right neighbour.
      */
     public void remove(Node<K, V> item){
         if(size != 0) {
-            if(item == this.back){
+            if(--size == 0) {
+                this.head = this.back = null;
+                this.isEmpty = true;
+            } else if(item == this.back){
                 this.back = this.back.left;
                 this.head.left = this.back;
                 this.back.right = this.head;
@@ -1902,7 +6029,6 @@ class DoublyLinkedCircularList<K, V> implements Iterable<Node<K, V>>{
     public Node<K, V> remove_and_get_next(Node<K, V> item){
         if(size != 0) {
             remove(item);
-            if(--size == 0) this.isEmpty = true;
             return item.right;
         }
         return null;
@@ -2124,13 +6250,14 @@ class PriorityQueue<K extends Comparable<K>, V> implements IPriorityQueue<K, V>{
 
     /**
      * <h2>Recursive cut {@code Node<K, V>}</h2>
-     * @param node - {@code Node<K, V>}
+     * Node that lost its child is marked as loser, loser that lost another child is cut from its parent.
+     * @param node - {@code Node<K, V>} that has just lost a child
      */
     private void recursive_cut(Node<K, V> node){
         Node<K, V> parent = node.getParent();
         if(parent != null){
-            if(!parent.isLoser())
-                parent.setLoser(true);
+            if(!node.isLoser())
+                node.setLoser(true);
             else {
                 cut(parent, node);
                 recursive_cut(parent);
@@ -2230,9 +6357,14 @@ class PriorityQueue<K extends Comparable<K>, V> implements IPriorityQueue<K, V>{
                 cut(parent, item);
                 recursive_cut(parent);
             }
-            for (Node<K, V> iter : item.getChildren())
-                this.root_list.add(iter);
+            if(item.getChildren() != null)
+                for (Node<K, V> iter : item.getChildren()) {
+                    this.root_list.add(iter);
+                    iter.setSiblings_list(this.root_list);
+                    iter.setParent(null);
+                }
             this.root_list.remove(item);
+            --this.n;
         }
     }
 
@@ -2258,7 +6390,320 @@ class PriorityQueue<K extends Comparable<K>, V> implements IPriorityQueue<K, V>{
     /**
      * <h2>Check whether the priority queue is empty</h2>
      **/
+    @Override
     public boolean isEmpty(){
         return this.min == null;
     }
 }
+
+
+/**
+ * <h1>Bucket Queue class</h1>
+ * Priority queue for small non-negative integer keys. Nodes are stored in buckets indexed by key and then by secondary
+ * key, which is used to break ties in the same way as comparator of A* does. Each bucket is a
+ * {@code DoublyLinkedCircularList}, so insertion, deletion and decrease of key are O(1) and extraction of minimum only
+ * moves cursors over empty buckets.
+ * @param <V> - Value type template
+ */
+class BucketQueue<V> implements IPriorityQueue<Integer, V>{
+    //number of nodes
+    private int n;
+    //cursors to the bucket that may contain minimal node, all buckets before them are empty
+    private int minKey, minSecondaryKey;
+    private final ToIntFunction<V> secondaryKey;
+    //buckets.get(key).get(secondaryKey) is a list of nodes with such keys or null if it was never used
+    private final List<List<DoublyLinkedCircularList<Integer, V>>> buckets = new ArrayList<>();
+
+    /**
+     * <h2>Bucket Queue constructor</h2>
+     * @param secondaryKey function that gives non-negative secondary key of the value
+     */
+    public BucketQueue(ToIntFunction<V> secondaryKey) {
+        this.secondaryKey = secondaryKey;
+        this.n = 0;
+    }
+
+    /**
+     * <h2>Get bucket for given keys and create it if necessary</h2>
+     * @param key - {@code int} key
+     * @param secondary - {@code int} secondary key
+     * @return {@code DoublyLinkedCircularList<Integer, V>} bucket
+     */
+    private DoublyLinkedCircularList<Integer, V> getBucket(int key, int secondary){
+        while (buckets.size() <= key)
+            buckets.add(new ArrayList<>());
+        List<DoublyLinkedCircularList<Integer, V>> row = buckets.get(key);
+        while (row.size() <= secondary)
+            row.add(null);
+        if(row.get(secondary) == null)
+            row.set(secondary, new DoublyLinkedCircularList<>());
+        return row.get(secondary);
+    }
+
+    /**
+     * <h2>Move cursors to the first non-empty bucket</h2>
+     * @return first non-empty {@code DoublyLinkedCircularList<Integer, V>} bucket or null if queue is empty
+     */
+    private DoublyLinkedCircularList<Integer, V> firstBucket(){
+        if(this.n == 0)
+            return null;
+        for(; minKey < buckets.size(); ++minKey, minSecondaryKey = 0){
+            List<DoublyLinkedCircularList<Integer, V>> row = buckets.get(minKey);
+            for(; minSecondaryKey < row.size(); ++minSecondaryKey){
+                DoublyLinkedCircularList<Integer, V> bucket = row.get(minSecondaryKey);
+                if(bucket != null && !bucket.isEmpty)
+                    return bucket;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * <h2>Find minimal {@code Node<Integer, V>}</h2>
+     * @return minimal {@code Node<Integer, V>}
+     */
+    @Override
+    public Node<Integer, V> findMin() {
+        DoublyLinkedCircularList<Integer, V> bucket = firstBucket();
+        return bucket == null ? null : bucket.head;
+    }
+
+    /**
+     * <h2>Extract minimal {@code Node<Integer, V>} from BucketQueue</h2>
+     * @return minimal {@code Node<Integer, V>}
+     */
+    @Override
+    public Node<Integer, V> extractMin() {
+        DoublyLinkedCircularList<Integer, V> bucket = firstBucket();
+        if(bucket == null)
+            return null;
+        Node<Integer, V> temp_node = bucket.head;
+        bucket.remove_and_get_next(temp_node);
+        temp_node.setSiblings_list(null);
+        --this.n;
+        return temp_node;
+    }
+
+    /**
+     * <h2>Bucket Queue insertion method</h2>
+     * @param item {@code Node<Integer, V>}
+     */
+    @Override
+    public void insert(Node<Integer, V> item) {
+        int key = item.getKey(), secondary = secondaryKey.applyAsInt(item.getValue());
+        DoublyLinkedCircularList<Integer, V> bucket = getBucket(key, secondary);
+        bucket.add(item);
+        item.setSiblings_list(bucket);
+        if(key < minKey || key == minKey && secondary < minSecondaryKey){
+            minKey = key;
+            minSecondaryKey = secondary;
+        }
+        ++this.n;
+    }
+
+    /**
+     * <h2>Decrease {@code Integer} key</h2>
+     * @param item - {@code Node<Integer, V>}
+     * @param newKey - {@code Integer}
+     */
+    @Override
+    public void decreaseKey(Node<Integer, V> item, Integer newKey) throws Exception {
+        if(newKey.compareTo(item.getKey()) > 0)
+            throw new Exception("New key is larger than current node key");
+        delete(item);
+        item.setKey(newKey);
+        insert(item);
+    }
+
+    /**
+     * <h2>Delete node</h2>
+     * @param item - {@code Node<Integer, V>}
+     */
+    @Override
+    public void delete(Node<Integer, V> item) {
+        if(item.getSiblings_list() != null) {
+            item.getSiblings_list().remove_and_get_next(item);
+            item.setSiblings_list(null);
+            --this.n;
+        }
+    }
+
+    /**
+     * <h2>Union with PriorityQueue</h2>
+     * All nodes of another queue are moved to this one.
+     * @param anotherQueue - {@code PriorityQueue<Integer, V>}
+     */
+    @Override
+    public void union(PriorityQueue<Integer, V> anotherQueue) {
+        while (!anotherQueue.isEmpty())
+            insert(anotherQueue.extractMin());
+    }
+
+    /**
+     * <h2>Check whether the bucket queue is empty</h2>
+     **/
+    @Override
+    public boolean isEmpty(){
+        return this.n == 0;
+    }
+}
+
+
+/**
+ * <h1>Open set interface</h1>
+ * Priority queue of indices of cells or states with {@code int} keys as it is used by A*. Keys with the same value
+ * are compared by the secondary key of the value.
+ */
+interface OpenSet {
+    void clear(IntUnaryOperator secondaryKey);
+    void relax(int value, int key);
+    int minKey();
+    int extractMin();
+    boolean isEmpty();
+}
+
+
+/**
+ * <h1>Int Binary Heap class</h1>
+ * Binary heap of indices of cells or states. Values, keys and positions of values in the heap are kept in arrays of
+ * {@code int} allocated once for the given number of values, so the heap can be cleared and reused without any
+ * allocation. Each value is in the heap at most once: insertion of the value that is already there decreases its key.
+ */
+class IntBinaryHeap implements OpenSet{
+    //number of values in the heap
+    private int n;
+    //values in the order of the heap
+    private final int[] heap;
+    //heapPos[value] is the index of the value in the heap or -1 if it is not there
+    private final int[] heapPos;
+    //keys[value] and secondaryKeys[value] are keys of the value while it is in the heap
+    private final int[] keys, secondaryKeys;
+    private IntUnaryOperator secondaryKey;
+
+    /**
+     * <h2>Int Binary Heap constructor</h2>
+     * @param size - number of possible values, values are from 0 to size - 1
+     */
+    public IntBinaryHeap(int size) {
+        this.heap = new int[size];
+        this.heapPos = new int[size];
+        this.keys = new int[size];
+        this.secondaryKeys = new int[size];
+        Arrays.fill(this.heapPos, -1);
+    }
+
+    /**
+     * <h2>Remove all values from the heap</h2>
+     * @param secondaryKey - function that gives secondary key of the value
+     */
+    @Override
+    public void clear(IntUnaryOperator secondaryKey) {
+        for (int i = 0; i < this.n; ++i)
+            this.heapPos[this.heap[i]] = -1;
+        this.n = 0;
+        this.secondaryKey = secondaryKey;
+    }
+
+    /**
+     * <h2>Insert the value or decrease its key</h2>
+     * Nothing is changed if the value is in the heap with a key that is not larger.
+     * @param value - {@code int} value
+     * @param key - {@code int} key
+     */
+    @Override
+    public void relax(int value, int key) {
+        int position = this.heapPos[value];
+        if(position == -1) {
+            position = this.n++;
+            this.secondaryKeys[value] = this.secondaryKey.applyAsInt(value);
+        } else if(key >= this.keys[value]) {
+            return;
+        }
+        this.keys[value] = key;
+        siftUp(value, position);
+    }
+
+    /**
+     * <h2>Find minimal key</h2>
+     * @return {@code int} key of the minimal value
+     */
+    @Override
+    public int minKey() {
+        return this.keys[this.heap[0]];
+    }
+
+    /**
+     * <h2>Extract minimal value</h2>
+     * @return {@code int} value with minimal key
+     */
+    @Override
+    public int extractMin() {
+        int min = this.heap[0], last = this.heap[--this.n];
+        this.heapPos[min] = -1;
+        if(this.n > 0)
+            siftDown(last, 0);
+        return min;
+    }
+
+    /**
+     * <h2>Check whether the heap is empty</h2>
+     **/
+    @Override
+    public boolean isEmpty() {
+        return this.n == 0;
+    }
+
+    /**
+     * <h2>Compare values by keys and then by secondary keys</h2>
+     * @param first - {@code int} value
+     * @param second - {@code int} value
+     * @return {@code true} if the first value goes before the second one
+     */
+    private boolean less(int first, int second) {
+        return this.keys[first] < this.keys[second] ||
+                this.keys[first] == this.keys[second] && this.secondaryKeys[first] < this.secondaryKeys[second];
+    }
+
+    /**
+     * <h2>Move the value from the position up to its place</h2>
+     * @param value - {@code int} value
+     * @param position - {@code int} current position of the value
+     */
+    private void siftUp(int value, int position) {
+        while (position > 0) {
+            int parent = (position - 1) >> 1;
+            if(!less(value, this.heap[parent]))
+                break;
+            place(this.heap[parent], position);
+            position = parent;
+        }
+        place(value, position);
+    }
+
+    /**
+     * <h2>Move the value from the position down to its place</h2>
+     * @param value - {@code int} value
+     * @param position - {@code int} current position of the value
+     */
+    private void siftDown(int value, int position) {
+        for (int child = 2 * position + 1; child < this.n; child = 2 * position + 1) {
+            if(child + 1 < this.n && less(this.heap[child + 1], this.heap[child]))
+                ++child;
+            if(!less(this.heap[child], value))
+                break;
+            place(this.heap[child], position);
+            position = child;
+        }
+        place(value, position);
+    }
+
+    /**
+     * <h2>Put the value to the position of the heap</h2>
+     * @param value - {@code int} value
+     * @param position - {@code int} position in the heap
+     */
+    private void place(int value, int position) {
+        this.heap[position] = value;
+        this.heapPos[value] = position;
+    }
+}